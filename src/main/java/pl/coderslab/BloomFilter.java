@@ -0,0 +1,87 @@
+package pl.coderslab;
+
+/**
+ * Set membership in a fixed bit array: no false negatives, false positives at roughly the rate it was sized for.
+ * Strings are hashed case-insensitively, so the caller doesn't have to lower-case (and copy) its input.
+ * Not thread-safe: fill it from one thread, or publish it safely before reading from others.
+ */
+public final class BloomFilter {
+
+    public static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.words = new long[(int) ((bitCount + 63) / 64)];
+        this.bitCount = (long) words.length * 64;
+        this.hashCount = hashCount;
+    }
+
+    public static BloomFilter create(long expectedEntries, double falsePositiveRate) {
+        long entries = Math.max(1, expectedEntries);
+        long bits = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int hashes = Math.max(1, (int) Math.round((double) bits / entries * Math.log(2)));
+        return new BloomFilter(Math.max(64, bits), hashes);
+    }
+
+    public void add(CharSequence value) {
+        long base = mix(hash(value, 0, value.length()));
+        long step = mix(base) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(base + i * step, bitCount);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(CharSequence value) {
+        return mightContain(value, 0, value.length());
+    }
+
+    public boolean mightContain(CharSequence value, int from, int to) {
+        return mightContain(hash(value, from, to));
+    }
+
+    // For callers that computed hash() during their own pass over the value
+    public boolean mightContain(long hash) {
+        long base = mix(hash);
+        long step = mix(base) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(base + i * step, bitCount);
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // FNV-1a over lower-cased chars; update() lets a scanner hash while it walks the string
+    public static long hash(CharSequence value, int from, int to) {
+        long hash = FNV_OFFSET;
+        for (int i = from; i < to; i++) {
+            hash = update(hash, value.charAt(i));
+        }
+        return hash;
+    }
+
+    public static long update(long hash, char c) {
+        return (hash ^ Character.toLowerCase(c)) * 0x100000001b3L;
+    }
+
+    // splitmix64 finalizer - spreads FNV's weak low bits and derives the step for double hashing
+    private static long mix(long hash) {
+        long z = hash + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
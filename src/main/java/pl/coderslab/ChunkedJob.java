@@ -0,0 +1,37 @@
+package pl.coderslab;
+
+/**
+ * Pacing and reporting shared by the jobs that work through a table in chunks: a pause between chunks,
+ * so that other transactions get at the locked rows, and one summary line with the throughput at the end.
+ */
+public final class ChunkedJob {
+
+    private final String name;
+    private final long pauseMs;
+    private final long startNanos;
+
+    private ChunkedJob(String name, long pauseMs) {
+        this.name = name;
+        this.pauseMs = pauseMs;
+        this.startNanos = System.nanoTime();
+    }
+
+    public static ChunkedJob start(String name, long pauseMs) {
+        return new ChunkedJob(name, pauseMs);
+    }
+
+    public void pause() {
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(name + " interrupted", e);
+        }
+    }
+
+    // e.g. "Comment retention: deleted 1200 comments in 0.4 s (3000 rows/s)"
+    public void finish(String summary, long rows) {
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1_000_000_000.0, 0.001);
+        System.out.printf("%s: %s in %.1f s (%.0f rows/s)%n", name, summary, seconds, rows / seconds);
+    }
+}
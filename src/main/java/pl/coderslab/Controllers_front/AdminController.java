@@ -2,6 +2,8 @@ package pl.coderslab.Controllers_front;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -34,6 +36,8 @@ import java.util.stream.Collectors;
 
 public class AdminController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserService userService;
     private final EventService eventService;
     private final RoleService roleService;
@@ -67,8 +71,14 @@ public class AdminController {
     }
 
     @GetMapping("/users")
-    public String users(Model model) {
-        model.addAttribute("users", userService.getUsers());
+    public String users(@RequestParam(defaultValue = "0") int page,
+                        @RequestParam(defaultValue = "50") int size,
+                        @RequestParam(required = false) String sortBy,
+                        Model model) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        Page<UserResponse> userPage = userService.getUserPage(sortBy, pageRequest);
+        model.addAttribute("users", userPage.getContent());
+        model.addAttribute("userPage", userPage);
         return "admin/users";
     }
 
@@ -178,9 +188,7 @@ public class AdminController {
 
                     model.addAttribute("editEventRequest", editRequest);
                     model.addAttribute("locations", locationService.getAllLocations());
-                    List<UserResponse> users = userService.getUsers();
-                    model.addAttribute("users", users);
-                    System.err.println("Added " + users.size() + " users to model");
+                    model.addAttribute("users", userService.getUserSummaries());
                     model.addAttribute("tags", tagService.getAllTags());
                     model.addAttribute("eventId", id);
                     return "admin/editevent";
@@ -197,7 +205,7 @@ public class AdminController {
 
         if (bindingResult.hasErrors()) {
             model.addAttribute("locations", locationService.getAllLocations());
-            model.addAttribute("users", userService.getUsers());
+            model.addAttribute("users", userService.getUserSummaries());
             model.addAttribute("tags", tagService.getAllTags());
             model.addAttribute("eventId", id);
             return "admin/editevent";
@@ -239,7 +247,7 @@ public class AdminController {
         } catch (IllegalArgumentException e) {
             model.addAttribute("errorMessage", e.getMessage());
             model.addAttribute("locations", locationService.getAllLocations());
-            model.addAttribute("users", userService.getUsers());
+            model.addAttribute("users", userService.getUserSummaries());
             model.addAttribute("tags", tagService.getAllTags());
             model.addAttribute("eventId", id);
             return "admin/editevent";
@@ -385,10 +393,7 @@ public class AdminController {
     public String deleteRegistration(@PathVariable Long registrationId,
                                      RedirectAttributes redirectAttributes) {
         try {
-            Registration registration = registrationRepository.findById(registrationId)
-                    .orElseThrow(() -> new EntityNotFoundException("Registration not found"));
-
-            registrationRepository.delete(registration);
+            registrationService.deleteRegistration(registrationId);
             redirectAttributes.addFlashAttribute("successMessage", "Registration deleted successfully!");
 
         } catch (Exception e) {
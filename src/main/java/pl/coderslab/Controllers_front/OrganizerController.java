@@ -21,9 +21,10 @@ import pl.coderslab.registrations.RegistrationService;
 import pl.coderslab.registrations.RegistrationStatus;
 import pl.coderslab.tags.Tag;
 import pl.coderslab.tags.TagService;
+import pl.coderslab.users.CurrentUserResolver;
 import pl.coderslab.users.User;
 import pl.coderslab.users.UserService;
-import pl.coderslab.users.dto.UserResponse;
+import pl.coderslab.users.dto.AuthenticatedUser;
 
 import java.util.HashSet;
 import java.util.List;
@@ -42,14 +43,16 @@ public class OrganizerController {
     private final TagService tagService;
     private final LocationService locationService;
     private final RegistrationRepository registrationRepository;
+    private final CurrentUserResolver currentUserResolver;
 
-    public OrganizerController(EventService eventService, UserService userService, RegistrationService registrationService, TagService tagService, LocationService locationService, RegistrationRepository registrationRepository) {
+    public OrganizerController(EventService eventService, UserService userService, RegistrationService registrationService, TagService tagService, LocationService locationService, RegistrationRepository registrationRepository, CurrentUserResolver currentUserResolver) {
         this.eventService = eventService;
         this.userService = userService;
         this.registrationService = registrationService;
         this.tagService = tagService;
         this.locationService = locationService;
         this.registrationRepository = registrationRepository;
+        this.currentUserResolver = currentUserResolver;
     }
 
     @GetMapping("/dashboard")
@@ -72,8 +75,8 @@ public class OrganizerController {
 
     @PostMapping("/events")
     public String createEvent(@ModelAttribute Event event, Authentication auth) {
-        User organizer = userService.findByEmail(auth.getName());
-        event.setOrganizer(organizer.getLastName());
+        AuthenticatedUser organizer = currentUserResolver.require(auth);
+        event.setOrganizer(organizer.lastName());
         eventService.save(event);
         return "redirect:/organizer/dashboard";
     }
@@ -94,10 +97,10 @@ public class OrganizerController {
         }
 
         Event event = eventOpt.get();
-        User participant = userService.findByEmail(auth.getName());
+        AuthenticatedUser participant = currentUserResolver.require(auth);
 
         List<Registration> registrations = eventService.getEventRegistrations(id);
-        boolean isUserRegistered = eventService.isUserRegisteredForEvent(participant.getId(), id);
+        boolean isUserRegistered = eventService.isUserRegisteredForEvent(participant.id(), id);
 
         model.addAttribute("e", event);
         model.addAttribute("registrationCount", registrations.size());
@@ -126,9 +129,6 @@ public class OrganizerController {
 
                     model.addAttribute("editEventRequest", editRequest);
                     model.addAttribute("locations", locationService.getAllLocations());
-                    List<UserResponse> users = userService.getUsers();
-                    model.addAttribute("users", users);
-                    System.err.println("Added " + users.size() + " users to model");
                     model.addAttribute("tags", tagService.getAllTags());
                     model.addAttribute("eventId", id);
                     return "organizer/edit-event";
@@ -145,7 +145,6 @@ public class OrganizerController {
 
         if (bindingResult.hasErrors()) {
             model.addAttribute("locations", locationService.getAllLocations());
-            model.addAttribute("users", userService.getUsers());
             model.addAttribute("tags", tagService.getAllTags());
             model.addAttribute("eventId", id);
             return "organizer/editevent";
@@ -187,7 +186,6 @@ public class OrganizerController {
         } catch (IllegalArgumentException e) {
             model.addAttribute("errorMessage", e.getMessage());
             model.addAttribute("locations", locationService.getAllLocations());
-            model.addAttribute("users", userService.getUsers());
             model.addAttribute("tags", tagService.getAllTags());
             model.addAttribute("eventId", id);
             return "organizer/edit-event";
@@ -210,11 +208,7 @@ public class OrganizerController {
     public String deleteRegistration(@PathVariable Long registrationId,
                                      RedirectAttributes redirectAttributes) {
         try {
-            Registration registration = registrationRepository.findById(registrationId)
-                    .orElseThrow(() -> new EntityNotFoundException("Registration not found"));
-
-            registration.setStatus(RegistrationStatus.CANCELLED);
-            registrationRepository.save(registration);
+            registrationService.cancelRegistrationByOrganizer(registrationId);
 
             redirectAttributes.addFlashAttribute("successMessage",
                     "Registration cancelled successfully!");
@@ -1,5 +1,7 @@
 package pl.coderslab.Controllers_front;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
@@ -12,10 +14,13 @@ import pl.coderslab.locations.Location;
 import pl.coderslab.locations.LocationService;
 import pl.coderslab.registrations.Registration;
 import pl.coderslab.registrations.RegistrationService;
+import pl.coderslab.registrations.RegistrationStatus;
 import pl.coderslab.tags.Tag;
 import pl.coderslab.tags.TagService;
+import pl.coderslab.users.CurrentUserResolver;
 import pl.coderslab.users.User;
 import pl.coderslab.users.UserService;
+import pl.coderslab.users.dto.AuthenticatedUser;
 
 import java.util.*;
 
@@ -24,20 +29,24 @@ import java.util.*;
 
 public class ParticipantController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final EventService eventService;
     private final RegistrationService registrationService;
     private final UserService userService;
     private final LocationService locationService;
     private final TagService tagService;
     private final PasswordEncoder passwordEncoder;
+    private final CurrentUserResolver currentUserResolver;
 
-    public ParticipantController(EventService eventService, RegistrationService registrationService, UserService userService, LocationService locationService, TagService tagService, PasswordEncoder passwordEncoder) {
+    public ParticipantController(EventService eventService, RegistrationService registrationService, UserService userService, LocationService locationService, TagService tagService, PasswordEncoder passwordEncoder, CurrentUserResolver currentUserResolver) {
         this.eventService = eventService;
         this.registrationService = registrationService;
         this.userService = userService;
         this.locationService = locationService;
         this.tagService = tagService;
         this.passwordEncoder = passwordEncoder;
+        this.currentUserResolver = currentUserResolver;
     }
 
     @GetMapping("/events")
@@ -46,17 +55,20 @@ public class ParticipantController {
             @RequestParam(required = false) Long locationId,
             @RequestParam(required = false) Long tagId,
             @RequestParam(defaultValue = "startAt") String sortBy,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
             Model model,
             Authentication auth) {
 
         try {
-            List<Event> events = new ArrayList<>();
+            Page<Event> eventPage = Page.empty();
             List<Location> locations = new ArrayList<>();
             List<Tag> tags = new ArrayList<>();
-            User currentUser = null;
+            AuthenticatedUser currentUser = null;
 
             try {
-                events = eventService.findEventsWithFilters(search, locationId, tagId, sortBy);
+                PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+                eventPage = eventService.findEventsWithFilters(search, locationId, tagId, sortBy, pageRequest);
             } catch (Exception e) {
                 model.addAttribute("errorMessage", "Error loading events. Showing empty list.");
             }
@@ -73,15 +85,14 @@ public class ParticipantController {
                 System.err.println("Error loading tags: " + e.getMessage());
             }
 
-            if (auth != null && auth.isAuthenticated()) {
-                try {
-                    currentUser = userService.findByEmail(auth.getName());
-                } catch (Exception e) {
-                    System.err.println("Error loading current user: " + e.getMessage());
-                }
+            try {
+                currentUser = currentUserResolver.resolve(auth);
+            } catch (Exception e) {
+                System.err.println("Error loading current user: " + e.getMessage());
             }
 
-            model.addAttribute("events", events);
+            model.addAttribute("events", eventPage.getContent());
+            model.addAttribute("eventPage", eventPage);
             model.addAttribute("locations", locations);
             model.addAttribute("tags", tags);
             model.addAttribute("currentUser", currentUser);
@@ -91,6 +102,7 @@ public class ParticipantController {
         } catch (Exception e) {
             model.addAttribute("errorMessage", "Critical error loading page: " + e.getMessage());
             model.addAttribute("events", new ArrayList<>());
+            model.addAttribute("eventPage", Page.empty());
             model.addAttribute("locations", new ArrayList<>());
             model.addAttribute("tags", new ArrayList<>());
             model.addAttribute("currentUser", null);
@@ -108,10 +120,10 @@ public class ParticipantController {
         }
 
         Event event = eventOpt.get();
-        User participant = userService.findByEmail(auth.getName());
+        AuthenticatedUser participant = currentUserResolver.require(auth);
 
         List<Registration> registrations = eventService.getEventRegistrations(id);
-        boolean isUserRegistered = eventService.isUserRegisteredForEvent(participant.getId(), id);
+        boolean isUserRegistered = eventService.isUserRegisteredForEvent(participant.id(), id);
 
         model.addAttribute("e", event);
         model.addAttribute("registrationCount", registrations.size());
@@ -127,25 +139,25 @@ public class ParticipantController {
     public String registerForEvent(@PathVariable Long id, Authentication auth, RedirectAttributes redirectAttributes) {
 
         try {
-            User participant = userService.findByEmail(auth.getName());
+            AuthenticatedUser participant = currentUserResolver.require(auth);
             Optional<Event> eventOpt = eventService.getEventById(id);
 
             Event event = eventOpt.get();
 
-            if (event.isUserRegistered(participant.getId())) {
+            if (event.isUserRegistered(participant.id())) {
                 redirectAttributes.addFlashAttribute("warningMessage",
                         "Jesteś już zarejestrowany na to wydarzenie!");
                 return "redirect:/participant/events";
             }
 
-            if (event.isFull()) {
-                redirectAttributes.addFlashAttribute("errorMessage",
-                        "Wydarzenie jest już pełne!");
+            RegistrationStatus status = registrationService.registerUserForEvent(participant.id(), event.getId());
+
+            if (status == RegistrationStatus.WAITLISTED) {
+                redirectAttributes.addFlashAttribute("warningMessage",
+                        "Wydarzenie jest już pełne - zostałeś dodany do listy oczekujących: " + event.getTitle());
                 return "redirect:/participant/events";
             }
 
-            registrationService.registerUserForEvent(participant.getId(), event.getId());
-
             redirectAttributes.addFlashAttribute("successMessage",
                     "Zarejestrowałeś się na wydarzenie: " + event.getTitle());
 
@@ -163,9 +175,9 @@ public class ParticipantController {
                                       Authentication auth,
                                       RedirectAttributes redirectAttributes) {
         try {
-            User participant = userService.findByEmail(auth.getName());
+            AuthenticatedUser participant = currentUserResolver.require(auth);
 
-            registrationService.unregisterUserFromEvent(participant.getId(), id);
+            registrationService.unregisterUserFromEvent(participant.id(), id);
 
             redirectAttributes.addFlashAttribute("successMessage",
                     "Successfully unregistered from the event!");
@@ -182,7 +194,7 @@ public class ParticipantController {
     @GetMapping("/profile")
     public String profile(Model model, Authentication auth) {
         try {
-            User user = userService.findByEmail(auth.getName());
+            AuthenticatedUser user = currentUserResolver.require(auth);
             model.addAttribute("user", user);
 
             return "participant/profile";
@@ -201,7 +213,7 @@ public class ParticipantController {
                                 RedirectAttributes redirectAttributes) {
 
         try {
-            User user = userService.findByEmail(auth.getName());
+            AuthenticatedUser user = currentUserResolver.require(auth);
 
             if (firstName == null || firstName.trim().isEmpty()) {
                 redirectAttributes.addFlashAttribute("errorMessage", "First name is required");
@@ -218,19 +230,15 @@ public class ParticipantController {
                 return "redirect:/participant/profile";
             }
 
-            if (!user.getEmail().equals(email.trim())) {
+            if (!user.email().equals(email.trim())) {
                 User existingUser = userService.findByEmail(email.trim());
-                if (existingUser != null && !existingUser.getId().equals(user.getId())) {
+                if (existingUser != null && !existingUser.getId().equals(user.id())) {
                     redirectAttributes.addFlashAttribute("errorMessage", "Email is already in use");
                     return "redirect:/participant/profile";
                 }
             }
 
-            user.setFirstName(firstName.trim());
-            user.setLastName(lastName.trim());
-            user.setEmail(email.trim());
-
-            userService.save(user);
+            userService.updateProfile(user.id(), firstName, lastName, email);
 
             redirectAttributes.addFlashAttribute("successMessage", "Profile updated successfully!");
             return "redirect:/participant/profile";
@@ -249,7 +257,7 @@ public class ParticipantController {
                                  RedirectAttributes redirectAttributes) {
 
         try {
-            User user = userService.findByEmail(auth.getName());
+            User user = userService.getUserById(currentUserResolver.require(auth).id());
 
             // Walidacja
             if (currentPassword == null || currentPassword.trim().isEmpty()) {
@@ -272,8 +280,7 @@ public class ParticipantController {
                 return "redirect:/participant/profile";
             }
 
-            user.setPassword(passwordEncoder.encode(newPassword));
-            userService.save(user);
+            userService.changePassword(user.getId(), newPassword);
 
             redirectAttributes.addFlashAttribute("successMessage", "Password changed successfully!");
             return "redirect:/participant/profile";
@@ -287,9 +294,9 @@ public class ParticipantController {
     @GetMapping("/registrations")
     public String myRegistrations(Model model, Authentication auth) {
         try {
-            User participant = userService.findByEmail(auth.getName());
+            AuthenticatedUser participant = currentUserResolver.require(auth);
 
-            List<Registration> registrations = registrationService.getUserRegistrations(participant.getId());
+            List<Registration> registrations = registrationService.getUserRegistrations(participant.id());
 
             model.addAttribute("registrations", registrations);
             model.addAttribute("currentUser", participant); // Użyj tego samego obiektu
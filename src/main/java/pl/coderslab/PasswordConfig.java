@@ -1,15 +1,50 @@
 package pl.coderslab;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class PasswordConfig {
 
+    private static final int CALIBRATION_RUNS = 3;
+
+    // strength 0 = pick the highest BCrypt cost whose hash still fits target-ms on this machine, bounded by
+    // min/max-strength. A positive strength pins the cost, e.g. to keep it equal across differently sized nodes
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordHasher passwordEncoder(MeterRegistry meterRegistry,
+                                          @Value("${security.password.strength:0}") int strength,
+                                          @Value("${security.password.target-ms:250}") long targetMs,
+                                          @Value("${security.password.min-strength:10}") int minStrength,
+                                          @Value("${security.password.max-strength:14}") int maxStrength,
+                                          @Value("${security.password.hashing.workers:0}") int workers,
+                                          @Value("${security.password.hashing.queue-capacity:200}") int queueCapacity,
+                                          @Value("${security.password.hashing.timeout-ms:10000}") long timeoutMs) {
+        int workFactor = strength > 0 ? strength : calibrateStrength(targetMs, minStrength, maxStrength);
+        int threads = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new PasswordHasher(workFactor, threads, queueCapacity, timeoutMs, meterRegistry);
+    }
+
+    // Every step of the cost doubles the work, so one measurement at the minimum is enough to extrapolate
+    public static int calibrateStrength(long targetMs, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode("calibration");
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        int strength = minStrength;
+        double estimatedMs = best / 1_000_000.0;
+        while (strength < maxStrength && estimatedMs * 2 <= targetMs) {
+            strength++;
+            estimatedMs *= 2;
+        }
+        System.out.printf("BCrypt strength %d (~%.0f ms per hash, target %d ms)%n", strength, estimatedMs, targetMs);
+        return strength;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,181 @@
+package pl.coderslab;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt on a small pool of its own. A login storm then costs at most "workers" cores and a bounded queue -
+ * requests beyond that fail fast instead of every servlet thread burning CPU on hashes.
+ * Hashes made with a lower work factor report upgradeEncoding. A login re-hashes them in the background, and only
+ * while a worker is idle, so during a storm the upgrades wait for a quieter login instead of doubling the work.
+ */
+public class PasswordHasher implements PasswordEncoder {
+
+    private static final Pattern BCRYPT = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final BCryptPasswordEncoder encoder;
+    private final int strength;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+    private final Counter rehashed;
+    private final Counter rehashDeferred;
+
+    public PasswordHasher(int strength, int workers, int queueCapacity, long timeoutMs, MeterRegistry meterRegistry) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.timeoutMs = timeoutMs;
+
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("security.password.hashing.queue.depth", queue, BlockingQueue::size)
+                .description("Password hashes waiting for a hashing worker")
+                .register(meterRegistry);
+        Gauge.builder("security.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes being computed")
+                .register(meterRegistry);
+        Gauge.builder("security.password.hashing.strength", () -> strength)
+                .description("BCrypt work factor of new hashes")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("security.password.hashing")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("security.password.hashing")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("security.password.hashing.rejected")
+                .description("Hashes refused because the hashing queue was full")
+                .register(meterRegistry);
+        this.rehashed = Counter.builder("security.password.hashing.rehash")
+                .tag("result", "started")
+                .description("Weaker stored hashes re-hashed after a login")
+                .register(meterRegistry);
+        this.rehashDeferred = Counter.builder("security.password.hashing.rehash")
+                .tag("result", "deferred")
+                .description("Re-hashes left for a later login because no hashing worker was idle")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> encoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matchesAsync(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return await(encodeAsync(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(matchesAsync(rawPassword, encodedPassword));
+    }
+
+    // Only weaker hashes - a stronger one stays, so a lower configured cost never downgrades stored passwords
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = strengthOf(encodedPassword);
+        return cost > 0 && cost < strength;
+    }
+
+    // Hashes the password with the current work factor and hands the hash to store on a hashing worker - unless
+    // every worker is busy, then it returns false and the stored hash stays as it is until a later login
+    public boolean rehashInBackground(CharSequence rawPassword, Consumer<String> store) {
+        if (!executor.getQueue().isEmpty() || executor.getActiveCount() >= executor.getMaximumPoolSize()) {
+            rehashDeferred.increment();
+            return false;
+        }
+        CompletableFuture<String> hash;
+        try {
+            hash = encodeAsync(rawPassword);
+        } catch (IllegalStateException e) {
+            rehashDeferred.increment();
+            return false;
+        }
+        rehashed.increment();
+        hash.thenAccept(store).whenComplete((ignored, e) -> {
+            if (e != null) {
+                System.err.println("Password re-hash failed: " + e.getMessage());
+            }
+        });
+        return true;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // -1 when the value is not a BCrypt hash
+    public static int strengthOf(String encodedPassword) {
+        if (encodedPassword == null) {
+            return -1;
+        }
+        Matcher matcher = BCRYPT.matcher(encodedPassword);
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> hashing) {
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(hashing), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new IllegalStateException("Too many password checks in progress, try again in a moment");
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new IllegalStateException("Password hashing timed out after " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+        }
+    }
+}
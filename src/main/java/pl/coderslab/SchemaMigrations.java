@@ -0,0 +1,190 @@
+package pl.coderslab;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import pl.coderslab.events.EventRepository;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Versioned changes to indexes and constraints on top of the tables Hibernate creates. Every migration runs once
+ * and is recorded in schema_migrations; a migration that fails stops the startup, so the application never runs
+ * against a half-migrated schema. Steps check the catalog first, so an index someone already created by hand
+ * is not an error. New migrations go at the end of the list with the next version number - never edit an applied one.
+ * They run once every singleton, including Hibernate's schema update, is in place and before the web server
+ * accepts the first request.
+ */
+@Component
+public class SchemaMigrations implements SmartInitializingSingleton {
+
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    // MySQL emulates the pooled sequences with one-row "<table>_seq" tables; H2 has native sequences and none of them
+    private static final Map<String, String> SEQUENCE_TABLES = Map.of(
+            "users_seq", "users",
+            "events_seq", "events",
+            "registrations_seq", "registrations",
+            "notifications_seq", "notifications",
+            "invitations_seq", "invitations",
+            "comments_seq", "comments"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaMigrations(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private record Migration(int version, String description, Runnable apply) {}
+
+    private List<Migration> migrations() {
+        return List.of(
+                new Migration(1, "registrations: participants of an event by status, one registration per user and event", () -> {
+                    createIndex("registrations", "idx_registrations_event_status", "event_id, status");
+                    addUniqueConstraint("registrations", "uk_registrations_user_event", "user_id, event_id");
+                }),
+                new Migration(2, "notifications: unread notifications of a user", () ->
+                        createIndex("notifications", "idx_notifications_user_read_created", "user_id, is_read, created_at")),
+                new Migration(3, "invitations: duplicate checks and statistics answered from the index", () -> {
+                    createIndex("invitations", "idx_invitations_event_email_status", "event_id, email, status");
+                    dropIndex("invitations", "idx_invitations_event_email");
+                }),
+                new Migration(4, "comments: comments of an event by date", () ->
+                        createIndex("comments", "idx_comments_event_created", "event_id, created_at")),
+                new Migration(5, "users: admin user list by name", () -> {
+                    createIndex("users", "idx_users_last_first_name", "last_name, first_name, id");
+                    createIndex("users", "idx_users_first_last_name", "first_name, last_name, id");
+                }),
+                // The column was added with a default of 0; without this every event looked empty until the nightly repair
+                new Migration(6, "events: backfill confirmed_count from registrations", () ->
+                        jdbcTemplate.update(EventRepository.RECOMPUTE_CONFIRMED_COUNTS)),
+                // The sequence tables start at 1 when the ids move off IDENTITY; inserts must not reuse existing ids
+                new Migration(7, "ids: move the pooled sequences past the existing ids", () ->
+                        SEQUENCE_TABLES.forEach((sequenceTable, entityTable) -> {
+                            if (tableExists(sequenceTable)) {
+                                jdbcTemplate.update("UPDATE " + sequenceTable + " SET next_val = "
+                                        + "(SELECT COALESCE(MAX(id), 0) + ? FROM " + entityTable + ") "
+                                        + "WHERE next_val <= (SELECT COALESCE(MAX(id), 0) FROM " + entityTable + ")",
+                                        ID_ALLOCATION_SIZE + 1);
+                            }
+                        })),
+                // Notifications rendered from a shared payload have no message; ddl-auto=update never relaxes NOT NULL
+                new Migration(8, "notifications: message nullable", () -> {
+                    if (!columnIsNullable("notifications", "message")) {
+                        jdbcTemplate.execute("ALTER TABLE notifications MODIFY message VARCHAR(255) NULL");
+                    }
+                })
+        );
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        migrate();
+    }
+
+    public void migrate() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migrations (" +
+                "version INT NOT NULL PRIMARY KEY, " +
+                "description VARCHAR(255) NOT NULL, " +
+                "applied_at TIMESTAMP NOT NULL)");
+        Set<Integer> applied = new HashSet<>(jdbcTemplate.queryForList("SELECT version FROM schema_migrations", Integer.class));
+
+        for (Migration migration : migrations()) {
+            if (applied.contains(migration.version())) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                migration.apply().run();
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Schema migration " + migration.version() + " (" + migration.description()
+                        + ") failed: " + e.getMessage(), e);
+            }
+            jdbcTemplate.update("INSERT INTO schema_migrations (version, description, applied_at) VALUES (?, ?, CURRENT_TIMESTAMP)",
+                    migration.version(), migration.description());
+            System.out.println("Applied schema migration " + migration.version() + ": " + migration.description()
+                    + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    public Set<Integer> getAppliedVersions() {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT version FROM schema_migrations", Integer.class));
+    }
+
+    private void createIndex(String table, String name, String columns) {
+        if (!indexExists(table, name)) {
+            jdbcTemplate.execute("CREATE INDEX " + name + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    private void dropIndex(String table, String name) {
+        if (indexExists(table, name)) {
+            jdbcTemplate.execute("DROP INDEX " + name + " ON " + table);
+        }
+    }
+
+    // Refuses to start while duplicates exist instead of deleting anybody's data
+    private void addUniqueConstraint(String table, String name, String columns) {
+        if (indexExists(table, name)) {
+            return;
+        }
+        Long duplicates = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT " + columns + " FROM " + table
+                + " GROUP BY " + columns + " HAVING COUNT(*) > 1) duplicates", Long.class);
+        if (duplicates != null && duplicates > 0) {
+            throw new IllegalStateException(duplicates + " duplicated (" + columns + ") values in " + table
+                    + " must be removed before " + name + " can be added");
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " UNIQUE (" + columns + ")");
+    }
+
+    private boolean tableExists(String table) {
+        Boolean exists = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, tableName, new String[]{"TABLE"})) {
+                return tables.next();
+            }
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private boolean columnIsNullable(String table, String column) {
+        Boolean nullable = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            boolean upperCase = metaData.storesUpperCaseIdentifiers();
+            String tableName = upperCase ? table.toUpperCase(Locale.ROOT) : table;
+            String columnName = upperCase ? column.toUpperCase(Locale.ROOT) : column;
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, tableName, columnName)) {
+                return !columns.next() || !"NO".equals(columns.getString("IS_NULLABLE"));
+            }
+        });
+        return Boolean.TRUE.equals(nullable);
+    }
+
+    // H2 names the index behind a constraint "<constraint>_INDEX_<n>"
+    private boolean indexExists(String table, String name) {
+        Boolean exists = jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, tableName, false, false)) {
+                while (indexes.next()) {
+                    String indexName = indexes.getString("INDEX_NAME");
+                    String lowerCase = indexName != null ? indexName.toLowerCase(Locale.ROOT) : "";
+                    if (lowerCase.equals(name) || lowerCase.startsWith(name + "_index")) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
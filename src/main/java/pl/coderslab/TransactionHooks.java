@@ -0,0 +1,42 @@
+package pl.coderslab;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ties in-memory state to the outcome of the surrounding transaction: caches, counters and queues
+ * change only once the database change they mirror has committed, or are put back when it rolls back.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    // Runs the action after the surrounding transaction commits, or right away when there is none
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Runs the action if the surrounding transaction does not commit; without a transaction there is nothing to undo
+    public static void onRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+}
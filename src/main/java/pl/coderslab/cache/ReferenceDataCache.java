@@ -0,0 +1,83 @@
+package pl.coderslab.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+import pl.coderslab.TransactionHooks;
+import pl.coderslab.locations.Location;
+
+import javax.cache.CacheManager;
+
+/**
+ * Query-cache regions of the reference lists rendered on almost every form, and their eviction.
+ * Hibernate already invalidates cached queries when it writes to their tables; the explicit eviction here
+ * covers changes it can't see and drops the lists right after the commit instead of on the next read.
+ * Publishes hit/miss/eviction counters and the size of every second-level cache region.
+ */
+@Component
+public class ReferenceDataCache {
+
+    public static final String LOCATIONS_QUERY_REGION = "query.locations";
+    public static final String TAGS_QUERY_REGION = "query.tags";
+    public static final String ROLES_QUERY_REGION = "query.roles";
+
+    private final CacheImplementor cache;
+
+    public ReferenceDataCache(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.cache = sessionFactory.getCache();
+        if (cache.getRegionFactory() instanceof JCacheRegionFactory regionFactory) {
+            // Query regions are created on first use - build them now so their metrics exist from the start
+            cache.getQueryResultsCache(LOCATIONS_QUERY_REGION);
+            cache.getQueryResultsCache(TAGS_QUERY_REGION);
+            cache.getQueryResultsCache(ROLES_QUERY_REGION);
+            cache.getDefaultQueryResultsCache();
+            CacheManager cacheManager = regionFactory.getCacheManager();
+            for (String region : cacheManager.getCacheNames()) {
+                registerMetrics(region, cacheManager.getCache(region).unwrap(Cache.class), meterRegistry);
+            }
+        }
+    }
+
+    public void evictLocationsAfterCommit() {
+        TransactionHooks.afterCommit(() -> cache.evictQueryRegion(LOCATIONS_QUERY_REGION));
+    }
+
+    public void evictLocationAfterCommit(Long id) {
+        TransactionHooks.afterCommit(() -> {
+            cache.evictEntityData(Location.class, id);
+            cache.evictQueryRegion(LOCATIONS_QUERY_REGION);
+        });
+    }
+
+    public void evictTagsAfterCommit() {
+        TransactionHooks.afterCommit(() -> cache.evictQueryRegion(TAGS_QUERY_REGION));
+    }
+
+    private static void registerMetrics(String region, Cache<?, ?> storage, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("cache.region.gets", storage, c -> c.stats().hitCount())
+                .tag("region", region)
+                .tag("result", "hit")
+                .description("Second-level cache lookups that found an entry")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.region.gets", storage, c -> c.stats().missCount())
+                .tag("region", region)
+                .tag("result", "miss")
+                .description("Second-level cache lookups that went to the database")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.region.evictions", storage, c -> c.stats().evictionCount())
+                .tag("region", region)
+                .description("Entries dropped from a full second-level cache region")
+                .register(meterRegistry);
+        Gauge.builder("cache.region.size", storage, Cache::estimatedSize)
+                .tag("region", region)
+                .description("Entries held in the second-level cache region")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,13 @@
+package pl.coderslab.comments;
+
+import java.time.LocalDateTime;
+
+// One line of the comment retention archive
+public record ArchivedComment(
+        Long id,
+        Long eventId,
+        Long authorId,
+        LocalDateTime createdAt,
+        String content
+) {
+}
@@ -3,11 +3,13 @@ package pl.coderslab.comments;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -30,7 +32,16 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     List<Comment> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
-    List<Comment> findByCreatedAtBefore(LocalDateTime cutoffDate);
+    // Keyset batch for retention - only the archived columns, no User/Event hydration
+    @Query("SELECT new pl.coderslab.comments.ArchivedComment(c.id, c.event.id, c.author.id, c.createdAt, c.content) " +
+            "FROM Comment c WHERE c.createdAt < :cutoff AND c.id > :afterId ORDER BY c.id")
+    List<ArchivedComment> findArchivedBefore(@Param("cutoff") LocalDateTime cutoff,
+                                             @Param("afterId") long afterId,
+                                             Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 
     @Query("SELECT c FROM Comment c WHERE c.event.user.id = :organizerId ORDER BY c.createdAt DESC")
     List<Comment> findCommentsFromUserEvents(@Param("organizerId") Long organizerId);
@@ -0,0 +1,128 @@
+package pl.coderslab.comments;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.coderslab.ChunkedJob;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Removes old comments in batches walked by id (keyset), reading only the columns needed for the archive,
+ * so memory use does not depend on how many comments expire. When comments.retention.archive-dir is set,
+ * every batch is appended to a gzipped NDJSON file as a finished gzip member and forced to disk before its
+ * delete commits, so a crash leaves a readable archive of everything deleted; a failed write stops the job
+ * before anything unarchived is removed.
+ */
+@Component
+public class CommentRetention {
+
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter deleted;
+    private final int batchSize;
+    private final long pauseMs;
+    private final String archiveDir;
+
+    public CommentRetention(CommentRepository commentRepository,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${comments.retention.batch-size:1000}") int batchSize,
+                            @Value("${comments.retention.pause-ms:20}") long pauseMs,
+                            @Value("${comments.retention.archive-dir:}") String archiveDir) {
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.pauseMs = pauseMs;
+        this.archiveDir = archiveDir;
+        this.deleted = Counter.builder("comments.retention.deleted")
+                .description("Comments removed by the retention job")
+                .register(meterRegistry);
+    }
+
+    public long deleteCreatedBefore(LocalDateTime cutoff) {
+        ChunkedJob job = ChunkedJob.start("Comment retention", pauseMs);
+        long total = 0;
+        Path archive = archiveDir.isBlank() ? null : Path.of(archiveDir,
+                "comments-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".ndjson.gz");
+
+        try (FileChannel channel = archive != null ? openArchive(archive) : null) {
+            long afterId = 0;
+            while (true) {
+                List<ArchivedComment> batch = commentRepository.findArchivedBefore(cutoff, afterId, PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                if (channel != null) {
+                    append(channel, batch);
+                }
+
+                List<Long> ids = batch.stream().map(ArchivedComment::id).toList();
+                Integer removed = transactionTemplate.execute(status -> commentRepository.deleteByIdIn(ids));
+                total += removed;
+                deleted.increment(removed);
+                afterId = ids.get(ids.size() - 1);
+
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                job.pause();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write comment archive " + archive + ", stopped after " + total + " comments", e);
+        }
+
+        if (archive != null && total == 0) {
+            try {
+                Files.deleteIfExists(archive);
+            } catch (IOException e) {
+                System.err.println("Cannot remove empty comment archive " + archive + ": " + e.getMessage());
+            }
+        }
+
+        job.finish("deleted " + total + " comments" + (archive != null && total > 0 ? ", archived to " + archive : ""), total);
+        return total;
+    }
+
+    private FileChannel openArchive(Path archive) throws IOException {
+        Files.createDirectories(archive.getParent());
+        return FileChannel.open(archive, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    // gzip readers read concatenated members as one stream, so the file stays a single .ndjson.gz
+    private void append(FileChannel channel, List<ArchivedComment> batch) throws IOException {
+        ByteArrayOutputStream member = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(member), StandardCharsets.UTF_8)) {
+            for (ArchivedComment comment : batch) {
+                writer.write(objectMapper.writeValueAsString(comment));
+                writer.write('\n');
+            }
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(member.toByteArray());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(true);
+    }
+}
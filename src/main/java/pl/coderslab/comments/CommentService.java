@@ -26,15 +26,18 @@ public class CommentService {
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final CommentRetention commentRetention;
 
     public CommentService(CommentRepository commentRepository,
                           EventRepository eventRepository,
                           UserRepository userRepository,
-                          NotificationService notificationService) {
+                          NotificationService notificationService,
+                          CommentRetention commentRetention) {
         this.commentRepository = commentRepository;
         this.eventRepository = eventRepository;
         this.userRepository = userRepository;
         this.notificationService = notificationService;
+        this.commentRetention = commentRetention;
     }
 
     // Creating
@@ -174,14 +177,12 @@ public class CommentService {
     }
 
     // Automatic deleting of old comments(optional))
+    // Not in the service transaction - every retention batch commits on its own
     @Scheduled(cron = "0 0 3 * * ?") // Everyday at 3:00
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void cleanupOldComments() {
         LocalDateTime cutoffDate = LocalDateTime.now().minusMonths(6); // 6 months
-        List<Comment> oldComments = commentRepository.findByCreatedAtBefore(cutoffDate);
-
-        if (!oldComments.isEmpty()) {
-            commentRepository.deleteAll(oldComments);
-            System.out.println("Cleaned up " + oldComments.size() + " old comments");
-        }
+        long removed = commentRetention.deleteCreatedBefore(cutoffDate);
+        System.out.println("Cleaned up " + removed + " old comments");
     }
 }
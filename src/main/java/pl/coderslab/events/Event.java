@@ -9,6 +9,7 @@ import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import pl.coderslab.invitations.Invitation;
 import pl.coderslab.locations.Location;
 import pl.coderslab.notifications.Notification;
@@ -22,13 +23,20 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+        @Index(name = "idx_events_start_at", columnList = "start_at, id"),
+        @Index(name = "idx_events_title", columnList = "title, id"),
+        @Index(name = "idx_events_organizer", columnList = "organizer, id"),
+        @Index(name = "idx_events_capacity", columnList = "capacity, id"),
+        @Index(name = "idx_events_location_start_at", columnList = "location_id, start_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 public class Event {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+    @SequenceGenerator(name = "events_seq", sequenceName = "events_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -49,12 +57,18 @@ public class Event {
     @NotNull
     private Integer capacity;
 
+    // Maintained only through EventRepository bulk updates, never by entity saves
+    @Column(name = "confirmed_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private Integer confirmedCount = 0;
+
     @ManyToOne
     @JoinColumn(name = "location_id")
     @JsonIgnore
     private Location location;
 
-    @ManyToOne
+    // Lazy, or every page of events loads each organizer with their roles
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnore
     private User user;
@@ -81,12 +95,7 @@ public class Event {
     private Set<Tag> tags = new HashSet<>();
 
     public int getRegisteredCount() {
-        if (registrations == null) {
-            return 0;
-        }
-        return (int) registrations.stream()
-                .filter(reg -> reg.getStatus() == RegistrationStatus.CONFIRMED)
-                .count();
+        return confirmedCount != null ? confirmedCount : 0;
     }
 
     public boolean isUserRegistered(Long userId) {
@@ -0,0 +1,11 @@
+package pl.coderslab.events;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import pl.coderslab.events.dto.EventFilter;
+
+public interface EventListRepository {
+
+    // First phase of the event list: one page of ids, filtered and sorted in the database
+    Page<Long> findEventIds(EventFilter filter, EventSort sort, Pageable pageable);
+}
@@ -66,7 +66,7 @@ public class EventPageController {
 
         model.addAttribute("eventRequest", emptyRequest);
         model.addAttribute("locations", locationService.getAllLocations());
-        model.addAttribute("users", userService.getUsers());
+        model.addAttribute("users", userService.getUserSummaries());
         model.addAttribute("allTags", tagService.getAllTags());
         return "events/create";
     }
@@ -1,22 +1,27 @@
 package pl.coderslab.events;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.coderslab.events.dto.EventResponse;
+import pl.coderslab.events.dto.EventSearchDocument;
+import pl.coderslab.events.dto.EventSearchTag;
 import pl.coderslab.locations.Location;
 import pl.coderslab.registrations.Registration;
 import pl.coderslab.users.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long> {
+public interface EventRepository extends JpaRepository<Event, Long>, EventListRepository {
 
     @EntityGraph(attributePaths = {"location", "tags"})
     List<Event> findAll();
@@ -34,24 +39,48 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     @Query("SELECT DISTINCT e.location.city FROM Event e WHERE e.location.city IS NOT NULL ORDER BY e.location.city")
     List<String> findAllCities();
 
-    @Query("SELECT e FROM Event e " +
+    // Second phase: the events of one page with location and tags
+    @Query("SELECT DISTINCT e FROM Event e " +
             "LEFT JOIN FETCH e.location l " +
             "LEFT JOIN FETCH e.tags t " +
-            "WHERE (:search IS NULL OR LOWER(e.title) LIKE LOWER(CONCAT('%', :search, '%'))) " +
-            "AND (:locationId IS NULL OR e.location.id = :locationId) " +
-            "AND (:tagId IS NULL OR :tagId IN (SELECT tag.id FROM e.tags tag)) " +
-            "ORDER BY " +
-            "CASE WHEN :sortBy = 'title' THEN e.title END ASC, " +
-            "CASE WHEN :sortBy = 'organizer' THEN e.organizer END ASC, " +
-            "CASE WHEN :sortBy = 'capacity' THEN e.capacity END ASC, " +
-            "CASE WHEN :sortBy = 'location' THEN e.location.name END ASC, " +
-            "CASE WHEN :sortBy = 'startAt' OR :sortBy IS NULL THEN e.startAt END ASC")
-    List<Event> findEventsWithFiltersRaw(
-            @Param("search") String search,
-            @Param("locationId") Long locationId,
-            @Param("tagId") Long tagId,
-            @Param("sortBy") String sortBy
-    );
+            "WHERE e.id IN :ids")
+    List<Event> findAllWithLocationAndTagsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new pl.coderslab.events.dto.EventSearchDocument(e.id, e.title, e.organizer, l.id, l.name, l.city) " +
+            "FROM Event e LEFT JOIN e.location l " +
+            "WHERE e.id > :afterId ORDER BY e.id")
+    List<EventSearchDocument> findSearchDocuments(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new pl.coderslab.events.dto.EventSearchDocument(e.id, e.title, e.organizer, l.id, l.name, l.city) " +
+            "FROM Event e LEFT JOIN e.location l " +
+            "WHERE e.id = :id")
+    Optional<EventSearchDocument> findSearchDocument(@Param("id") Long id);
+
+    @Query("SELECT new pl.coderslab.events.dto.EventSearchDocument(e.id, e.title, e.organizer, l.id, l.name, l.city) " +
+            "FROM Event e JOIN e.location l " +
+            "WHERE l.id = :locationId")
+    List<EventSearchDocument> findSearchDocumentsByLocationId(@Param("locationId") Long locationId);
+
+    @Query("SELECT new pl.coderslab.events.dto.EventSearchTag(e.id, t.id, t.name) " +
+            "FROM Event e JOIN e.tags t " +
+            "WHERE e.id IN :eventIds")
+    List<EventSearchTag> findSearchTags(@Param("eventIds") Collection<Long> eventIds);
+
+    @Query("SELECT new pl.coderslab.events.dto.EventSearchTag(e.id, t.id, t.name) " +
+            "FROM Event e JOIN e.tags t " +
+            "WHERE e.id > :afterId AND e.id <= :lastId")
+    List<EventSearchTag> findSearchTagsInRange(@Param("afterId") Long afterId, @Param("lastId") Long lastId);
 
     boolean existsByTitleAndStartAt(String title, LocalDateTime startAt);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedCount = e.confirmedCount + :delta WHERE e.id = :eventId")
+    int adjustConfirmedCount(@Param("eventId") Long eventId, @Param("delta") int delta);
+
+    String RECOMPUTE_CONFIRMED_COUNTS = "UPDATE events e SET e.confirmed_count = " +
+            "(SELECT COUNT(*) FROM registrations r WHERE r.event_id = e.id AND r.status = 'CONFIRMED')";
+
+    @Modifying
+    @Query(value = RECOMPUTE_CONFIRMED_COUNTS, nativeQuery = true)
+    int recomputeConfirmedCounts();
 }
@@ -0,0 +1,561 @@
+package pl.coderslab.events;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import pl.coderslab.TransactionHooks;
+import pl.coderslab.events.dto.EventSearchDocument;
+import pl.coderslab.events.dto.EventSearchTag;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over event title, organizer, location name/city and tag names, so the participant
+ * search box does not run LIKE '%term%' (a full scan of events) on every request.
+ * Terms are lower-cased and stripped of diacritics. Every query word matches equal terms and terms it is a prefix of;
+ * a word with no such match falls back to terms within one or two typos, found through a trigram index of the vocabulary.
+ * All words must match. Results are ranked by field (title first), match quality and how rare the term is.
+ * The index is filled from the database in the background at startup - until then search uses the LIKE query -
+ * and follows event changes after their transactions commit. It is local to this node.
+ */
+@Component
+public class EventSearchIndex implements ApplicationRunner {
+
+    static final byte TITLE = 1;
+    static final byte ORGANIZER = 2;
+    static final byte LOCATION = 4;
+    static final byte TAG = 8;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private static final float EXACT = 1.0f;
+    private static final float PREFIX = 0.7f;
+    private static final float ONE_TYPO = 0.5f;
+    private static final float TWO_TYPOS = 0.3f;
+    private static final float TYPO_IN_PREFIX = 0.8f;
+
+    private final EventRepository eventRepository;
+    private final int maxResults;
+    private final int loadBatchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private final Map<Long, IndexedEvent> documents = new HashMap<>();
+
+    // Events changed while the initial load runs - the loader must not overwrite them with what it read earlier
+    private final Set<Long> changedDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public EventSearchIndex(EventRepository eventRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${events.search.max-results:500}") int maxResults,
+                            @Value("${events.search.load-batch-size:1000}") int loadBatchSize) {
+        this.eventRepository = eventRepository;
+        this.maxResults = maxResults;
+        this.loadBatchSize = loadBatchSize;
+
+        Gauge.builder("events.search.index.documents", this, EventSearchIndex::size)
+                .description("Events in the search index")
+                .register(meterRegistry);
+        Gauge.builder("events.search.index.terms", this, EventSearchIndex::termCount)
+                .description("Distinct terms in the search index")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread loader = new Thread(this::rebuild, "event-search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // Reads all events page by page (keyset on id) and replaces the index content
+    public void rebuild() {
+        long start = System.nanoTime();
+        ready = false;
+        changedDuringLoad.clear();
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            trigrams.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            long afterId = 0;
+            while (true) {
+                List<EventSearchDocument> page = eventRepository.findSearchDocuments(afterId, PageRequest.of(0, loadBatchSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                long lastId = page.get(page.size() - 1).id();
+                // The page is a contiguous id range, so its tags come from a range scan instead of a long IN list
+                Map<Long, List<EventSearchTag>> tags = eventRepository.findSearchTagsInRange(afterId, lastId).stream()
+                        .collect(Collectors.groupingBy(EventSearchTag::eventId));
+                lock.writeLock().lock();
+                try {
+                    for (EventSearchDocument document : page) {
+                        if (!changedDuringLoad.contains(document.id())) {
+                            put(document, tags.getOrDefault(document.id(), List.of()));
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                afterId = lastId;
+            }
+            ready = true;
+            changedDuringLoad.clear();
+            System.out.println("Event search index: " + size() + " events, " + termCount() + " terms loaded in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            System.err.println("Event search index load failed, search stays on the database: " + e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void reindexAfterCommit(Long eventId) {
+        afterCommit(() -> reindex(eventId));
+    }
+
+    public void removeAfterCommit(Long eventId) {
+        afterCommit(() -> remove(eventId));
+    }
+
+    // Location name and city are indexed with every event held there
+    public void reindexLocationAfterCommit(Long locationId) {
+        afterCommit(() -> {
+            List<EventSearchDocument> held = eventRepository.findSearchDocumentsByLocationId(locationId);
+            for (int from = 0; from < held.size(); from += loadBatchSize) {
+                List<EventSearchDocument> chunk = held.subList(from, Math.min(from + loadBatchSize, held.size()));
+                Map<Long, List<EventSearchTag>> tags = loadTags(chunk);
+                for (EventSearchDocument document : chunk) {
+                    index(document, tags.getOrDefault(document.id(), List.of()));
+                }
+            }
+        });
+    }
+
+    public void reindex(Long eventId) {
+        eventRepository.findSearchDocument(eventId).ifPresentOrElse(
+                document -> index(document, eventRepository.findSearchTags(List.of(eventId))),
+                () -> remove(eventId));
+    }
+
+    public void index(EventSearchDocument document, List<EventSearchTag> tags) {
+        if (!ready) {
+            changedDuringLoad.add(document.id());
+        }
+        lock.writeLock().lock();
+        try {
+            put(document, tags);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long eventId) {
+        if (!ready) {
+            changedDuringLoad.add(eventId);
+        }
+        lock.writeLock().lock();
+        try {
+            delete(eventId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of matching events, best first, at most max-results of them
+    public List<Long> search(String query, Long locationId, Long tagId) {
+        return search(query, locationId, tagId, PageRequest.of(0, maxResults)).getContent();
+    }
+
+    // A page of matching events by relevance. The total counts every match, but only the best max-results
+    // are ranked - pages past them are empty
+    public Page<Long> search(String query, Long locationId, Long tagId, Pageable pageable) {
+        Map<Long, Float> scores = score(query, locationId, tagId);
+        long ranked = Math.min(maxResults, pageable.getOffset() + pageable.getPageSize());
+        List<Long> ids = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Float>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .limit(ranked)
+                .skip(pageable.getOffset())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        return new PageImpl<>(ids, pageable, scores.size());
+    }
+
+    // Every matching event, unordered - for sorting by a column, which the database does
+    public Set<Long> findMatchingIds(String query, Long locationId, Long tagId) {
+        return score(query, locationId, tagId).keySet();
+    }
+
+    // Matching events with their scores; all words must match
+    private Map<Long, Float> score(String query, Long locationId, Long tagId) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (words.isEmpty()) {
+            return Map.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Postings, Float>> matches = new ArrayList<>();
+            for (String word : words) {
+                Map<Postings, Float> wordMatches = expand(word);
+                if (wordMatches.isEmpty()) {
+                    return Map.of();
+                }
+                matches.add(wordMatches);
+            }
+            // Rarest word first keeps the candidate set small for the following ones
+            matches.sort(Comparator.comparingLong(EventSearchIndex::postingCount));
+
+            Map<Long, Float> scores = null;
+            for (Map<Postings, Float> wordMatches : matches) {
+                Map<Long, Float> wordScores = new HashMap<>();
+                for (Map.Entry<Postings, Float> match : wordMatches.entrySet()) {
+                    Postings postings = match.getKey();
+                    float weight = match.getValue() * idf(postings);
+                    for (int i = 0; i < postings.size; i++) {
+                        long id = postings.ids[i];
+                        if (scores != null && !scores.containsKey(id)) {
+                            continue;
+                        }
+                        wordScores.merge(id, weight * fieldWeight(postings.fields[i]), Math::max);
+                    }
+                }
+                if (scores != null) {
+                    Map<Long, Float> previous = scores;
+                    wordScores.replaceAll((id, score) -> score + previous.get(id));
+                }
+                scores = wordScores;
+                if (scores.isEmpty()) {
+                    return Map.of();
+                }
+            }
+
+            if (locationId != null || tagId != null) {
+                scores.keySet().removeIf(id -> !documents.get(id).matches(locationId, tagId));
+            }
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("")
+                .replace('ł', 'l');
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    // Optimal string alignment distance (a swap of neighbours counts as one typo), gives up above max
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private Map<Postings, Float> expand(String word) {
+        Map<Postings, Float> matches = new HashMap<>();
+        Postings exact = terms.get(word);
+        if (exact != null) {
+            matches.put(exact, EXACT);
+        }
+
+        if (word.length() >= MIN_PREFIX_LENGTH) {
+            // Most common completions only, a two-letter prefix can open a large part of the vocabulary
+            PriorityQueue<Postings> completions = new PriorityQueue<>(Comparator.comparingInt(postings -> postings.size));
+            for (Postings postings : terms.subMap(word, false, word + Character.MAX_VALUE, false).values()) {
+                completions.add(postings);
+                if (completions.size() > MAX_PREFIX_EXPANSIONS) {
+                    completions.poll();
+                }
+            }
+            for (Postings postings : completions) {
+                matches.put(postings, PREFIX);
+            }
+        }
+
+        if (matches.isEmpty() && word.length() >= MIN_FUZZY_LENGTH) {
+            int maxTypos = word.length() <= 5 ? 1 : 2;
+            List<String> wordGrams = trigramsOf(word);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String gram : wordGrams) {
+                for (String term : trigrams.getOrDefault(gram, Set.of())) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+            // One typo breaks at most three trigrams
+            int minShared = Math.max(1, wordGrams.size() - 3 * maxTypos);
+            for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+                if (candidate.getValue() < minShared) {
+                    continue;
+                }
+                String term = candidate.getKey();
+                float weight = 0;
+                int typos = editDistance(word, term, maxTypos);
+                if (typos <= maxTypos) {
+                    weight = typos == 1 ? ONE_TYPO : TWO_TYPOS;
+                } else if (term.length() > word.length()) {
+                    typos = editDistance(word, term.substring(0, word.length()), maxTypos);
+                    if (typos <= maxTypos) {
+                        weight = (typos == 1 ? ONE_TYPO : TWO_TYPOS) * TYPO_IN_PREFIX;
+                    }
+                }
+                if (weight > 0) {
+                    matches.merge(terms.get(term), weight, Math::max);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private float idf(Postings postings) {
+        return (float) Math.log(1.0 + (double) documents.size() / postings.size);
+    }
+
+    private static float fieldWeight(byte fields) {
+        if ((fields & TITLE) != 0) {
+            return 3.0f;
+        }
+        if ((fields & TAG) != 0) {
+            return 2.0f;
+        }
+        if ((fields & LOCATION) != 0) {
+            return 1.5f;
+        }
+        return 1.0f;
+    }
+
+    private static long postingCount(Map<Postings, Float> matches) {
+        return matches.keySet().stream().mapToLong(postings -> postings.size).sum();
+    }
+
+    private static List<String> trigramsOf(String term) {
+        String padded = "$" + term;
+        if (padded.length() <= 3) {
+            return List.of(padded);
+        }
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private Map<Long, List<EventSearchTag>> loadTags(Collection<EventSearchDocument> page) {
+        List<Long> ids = page.stream().map(EventSearchDocument::id).toList();
+        return eventRepository.findSearchTags(ids).stream()
+                .collect(Collectors.groupingBy(EventSearchTag::eventId));
+    }
+
+    // A failed index update is logged - the event change itself has committed
+    private void afterCommit(Runnable update) {
+        TransactionHooks.afterCommit(() -> {
+            try {
+                update.run();
+            } catch (Exception e) {
+                System.err.println("Event search index update failed: " + e.getMessage());
+            }
+        });
+    }
+
+    // Callers hold the write lock
+    private void put(EventSearchDocument document, List<EventSearchTag> tags) {
+        delete(document.id());
+
+        Map<String, Byte> eventTerms = new LinkedHashMap<>();
+        addTerms(eventTerms, document.title(), TITLE);
+        addTerms(eventTerms, document.organizer(), ORGANIZER);
+        addTerms(eventTerms, document.locationName(), LOCATION);
+        addTerms(eventTerms, document.locationCity(), LOCATION);
+        for (EventSearchTag tag : tags) {
+            addTerms(eventTerms, tag.name(), TAG);
+        }
+
+        Postings[] postingsOfEvent = new Postings[eventTerms.size()];
+        int i = 0;
+        for (Map.Entry<String, Byte> term : eventTerms.entrySet()) {
+            Postings postings = terms.get(term.getKey());
+            if (postings == null) {
+                postings = new Postings(term.getKey());
+                terms.put(term.getKey(), postings);
+                for (String gram : trigramsOf(term.getKey())) {
+                    trigrams.computeIfAbsent(gram, g -> new HashSet<>()).add(term.getKey());
+                }
+            }
+            postings.add(document.id(), term.getValue());
+            postingsOfEvent[i++] = postings;
+        }
+
+        long[] tagIds = tags.stream().mapToLong(EventSearchTag::tagId).toArray();
+        documents.put(document.id(), new IndexedEvent(document.locationId(), tagIds, postingsOfEvent));
+    }
+
+    private void delete(Long eventId) {
+        IndexedEvent indexed = documents.remove(eventId);
+        if (indexed == null) {
+            return;
+        }
+        for (Postings postings : indexed.postings()) {
+            postings.remove(eventId);
+            if (postings.size == 0) {
+                terms.remove(postings.term);
+                for (String gram : trigramsOf(postings.term)) {
+                    Set<String> gramTerms = trigrams.get(gram);
+                    gramTerms.remove(postings.term);
+                    if (gramTerms.isEmpty()) {
+                        trigrams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Byte> eventTerms, String text, byte field) {
+        for (String token : tokenize(text)) {
+            eventTerms.merge(token, field, (a, b) -> (byte) (a | b));
+        }
+    }
+
+    private record IndexedEvent(Long locationId, long[] tagIds, Postings[] postings) {
+
+        boolean matches(Long wantedLocationId, Long wantedTagId) {
+            if (wantedLocationId != null && !wantedLocationId.equals(locationId)) {
+                return false;
+            }
+            return wantedTagId == null || Arrays.stream(tagIds).anyMatch(tagId -> tagId == wantedTagId);
+        }
+    }
+
+    // Event ids containing one term, sorted, with the fields the term appears in - primitive arrays keep
+    // a million events at a few bytes per posting
+    private static final class Postings {
+
+        private final String term;
+        private long[] ids = new long[2];
+        private byte[] fields = new byte[2];
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void add(long id, byte field) {
+            int position = size > 0 && ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                fields[position] |= field;
+                return;
+            }
+            position = -(position + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(fields, position, fields, position + 1, size - position);
+            ids[position] = id;
+            fields[position] = field;
+            size++;
+        }
+
+        private void remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(fields, position + 1, fields, position, size - position - 1);
+            size--;
+        }
+    }
+}
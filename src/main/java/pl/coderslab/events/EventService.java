@@ -1,26 +1,35 @@
 package pl.coderslab.events;
 
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.PathVariable;
 import pl.coderslab.events.dto.CreateEventRequest;
+import pl.coderslab.events.dto.EventFilter;
 import pl.coderslab.events.dto.EventResponse;
 import pl.coderslab.events.dto.UpdateEventRequest;
 import pl.coderslab.locations.Location;
+import pl.coderslab.notifications.NotificationService;
 import pl.coderslab.registrations.Registration;
 import pl.coderslab.registrations.RegistrationRepository;
+import pl.coderslab.registrations.RegistrationService;
 import pl.coderslab.registrations.RegistrationStatus;
+import pl.coderslab.registrations.SeatReservationEngine;
+import pl.coderslab.registrations.WaitlistQueue;
 import pl.coderslab.users.User;
 import pl.coderslab.users.UserRepository;
 
 import java.math.BigDecimal;
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -31,11 +40,21 @@ public class EventService {
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final RegistrationRepository registrationRepository;
+    private final SeatReservationEngine seatReservationEngine;
+    private final WaitlistQueue waitlistQueue;
+    private final RegistrationService registrationService;
+    private final NotificationService notificationService;
+    private final EventSearchIndex eventSearchIndex;
 
-    public EventService(EventRepository eventRepository, UserRepository userRepository, RegistrationRepository registrationRepository) {
+    public EventService(EventRepository eventRepository, UserRepository userRepository, RegistrationRepository registrationRepository, SeatReservationEngine seatReservationEngine, WaitlistQueue waitlistQueue, RegistrationService registrationService, NotificationService notificationService, EventSearchIndex eventSearchIndex) {
         this.eventRepository = eventRepository;
         this.registrationRepository = registrationRepository;
         this.userRepository = userRepository;
+        this.seatReservationEngine = seatReservationEngine;
+        this.waitlistQueue = waitlistQueue;
+        this.registrationService = registrationService;
+        this.notificationService = notificationService;
+        this.eventSearchIndex = eventSearchIndex;
     }
 
     public List<Event> getAllEventsAsEntities() {
@@ -109,7 +128,9 @@ public class EventService {
         event.setUser(createEventRequest.user());
         event.setTags(createEventRequest.tags());
 
-        return eventRepository.save(event).getId();
+        Long id = eventRepository.save(event).getId();
+        eventSearchIndex.reindexAfterCommit(id);
+        return id;
     }
 
     private void validateEventRequest(CreateEventRequest request) {
@@ -131,6 +152,8 @@ public class EventService {
             return 0L;
         }
 
+        int oldCapacity = event.getCapacity();
+
         event.setTitle(updateEventRequest.title());
         event.setOrganizer(updateEventRequest.organizer());
         event.setStartAt(updateEventRequest.startAt());
@@ -140,7 +163,13 @@ public class EventService {
         event.setUser(updateEventRequest.user());
         event.setTags(updateEventRequest.tags());
 
-        return eventRepository.save(event).getId();
+        Long savedId = eventRepository.save(event).getId();
+        eventSearchIndex.reindexAfterCommit(savedId);
+        seatReservationEngine.capacityChanged(id, oldCapacity, event.getCapacity());
+        if (event.getCapacity() > oldCapacity) {
+            registrationService.promoteFromWaitlist(id);
+        }
+        return savedId;
     }
 
     private void validateEventUpdate(UpdateEventRequest request) {
@@ -160,7 +189,11 @@ public class EventService {
         if (event == null) {
             return;
         }
+        notificationService.eventDeleted(id);
         eventRepository.delete(event);
+        seatReservationEngine.evictAfterCommit(id);
+        waitlistQueue.evictAfterCommit(id);
+        eventSearchIndex.removeAfterCommit(id);
     }
 
     public boolean isUserRegisteredForEvent(Long userId, Long eventId) {
@@ -171,22 +204,47 @@ public class EventService {
         return registrationRepository.findByEventId(eventId);
     }
 
-    public List<Event> findEventsWithFilters(String search, Long locationId, Long tagId, String sortBy) {
-        List<Event> events = eventRepository.findEventsWithFiltersRaw(search, locationId, tagId, sortBy);
+    public Page<Event> findEventsWithFilters(String search, Long locationId, Long tagId, String sortBy, Pageable pageable) {
+        boolean byRelevance = sortBy == null || "relevance".equals(sortBy);
+        EventSort sort = EventSort.fromParam(sortBy);
+        Page<Long> ids;
+        if (search != null && !search.isBlank() && eventSearchIndex.isReady()) {
+            if (byRelevance) {
+                // Index order is the ranking, the page is cut in memory
+                ids = eventSearchIndex.search(search, locationId, tagId, pageable);
+            } else {
+                // Every match goes to the database, which sorts and pages them by the column
+                Set<Long> matches = eventSearchIndex.findMatchingIds(search, locationId, tagId);
+                if (matches.isEmpty()) {
+                    return Page.empty(pageable);
+                }
+                ids = eventRepository.findEventIds(new EventFilter(null, null, null, matches), sort, pageable);
+            }
+        } else {
+            ids = eventRepository.findEventIds(new EventFilter(search, locationId, tagId, null), sort, pageable);
+        }
+        return loadPage(ids);
+    }
 
-        // Deletes duplicates with sorting
-        return new ArrayList<>(events.stream()
-                .collect(Collectors.toMap(
-                        Event::getId,
-                        Function.identity(),
-                        (existing, replacement) -> existing,
-                        LinkedHashMap::new))
-                .values());
+    // Second phase - one query for the events of the page, put back in the order of their ids
+    private Page<Event> loadPage(Page<Long> ids) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+        Map<Long, Event> byId = eventRepository.findAllWithLocationAndTagsByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Event::getId, Function.identity()));
+        List<Event> events = ids.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(events, ids.getPageable(), ids.getTotalElements());
     }
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('ORGANIZER') or @eventService.isOwner(#event.id, authentication.name)")
     public Event save(Event event) {
-        return eventRepository.save(event);
+        Event saved = eventRepository.save(event);
+        eventSearchIndex.reindexAfterCommit(saved.getId());
+        return saved;
     }
 
     public long getTotalEventsCount() {
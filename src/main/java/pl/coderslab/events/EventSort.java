@@ -0,0 +1,41 @@
+package pl.coderslab.events;
+
+import java.util.Arrays;
+
+/**
+ * Sort options of the event list. Only these columns can reach ORDER BY, each one backed by an index
+ * on (column, id) - the id makes the order total, so pages never overlap. LOCATION is the exception: it orders
+ * by the name of the joined location, which no index on events can cover, so the matching rows are sorted.
+ */
+public enum EventSort {
+    START_AT("startAt", "startAt"),
+    TITLE("title", "title"),
+    ORGANIZER("organizer", "organizer"),
+    CAPACITY("capacity", "capacity"),
+    LOCATION("location", null);
+
+    private final String param;
+    private final String attribute;
+
+    EventSort(String param, String attribute) {
+        this.param = param;
+        this.attribute = attribute;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    // Event attribute to order by, null when the order comes from the location name
+    String getAttribute() {
+        return attribute;
+    }
+
+    // Unknown values fall back to the start date
+    public static EventSort fromParam(String param) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.param.equals(param))
+                .findFirst()
+                .orElse(START_AT);
+    }
+}
@@ -0,0 +1,11 @@
+package pl.coderslab.events.dto;
+
+import java.util.Collection;
+
+// Conditions of the event list, null means "any"; ids restricts the list to events matched by the search index
+public record EventFilter(
+        String search,
+        Long locationId,
+        Long tagId,
+        Collection<Long> ids
+) {}
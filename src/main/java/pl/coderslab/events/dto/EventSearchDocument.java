@@ -0,0 +1,11 @@
+package pl.coderslab.events.dto;
+
+// Columns of an event that go into the search index
+public record EventSearchDocument(
+        Long id,
+        String title,
+        String organizer,
+        Long locationId,
+        String locationName,
+        String locationCity
+) {}
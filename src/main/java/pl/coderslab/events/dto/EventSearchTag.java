@@ -0,0 +1,7 @@
+package pl.coderslab.events.dto;
+
+public record EventSearchTag(
+        Long eventId,
+        Long tagId,
+        String name
+) {}
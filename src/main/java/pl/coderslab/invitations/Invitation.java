@@ -10,13 +10,16 @@ import pl.coderslab.users.User;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name="invitations")
+@Table(name="invitations", indexes = {
+        @Index(name = "idx_invitations_status_sent", columnList = "status, sent_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 public class Invitation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invitations_seq")
+    @SequenceGenerator(name = "invitations_seq", sequenceName = "invitations_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
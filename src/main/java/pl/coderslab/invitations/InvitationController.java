@@ -1,9 +1,15 @@
 package pl.coderslab.invitations;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import pl.coderslab.invitations.dto.BulkInvitationReport;
+import pl.coderslab.invitations.dto.InvitationImportReport;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -12,9 +18,11 @@ import java.util.Map;
 public class InvitationController {
 
     private final InvitationService invitationService;
+    private final InvitationImporter invitationImporter;
 
-    public InvitationController(InvitationService invitationService) {
+    public InvitationController(InvitationService invitationService, InvitationImporter invitationImporter) {
         this.invitationService = invitationService;
+        this.invitationImporter = invitationImporter;
     }
 
     @PostMapping("/send")
@@ -27,12 +35,34 @@ public class InvitationController {
     }
 
     @PostMapping("/send-multiple")
-    public ResponseEntity<List<Invitation>> sendMultipleInvitations(
+    public ResponseEntity<BulkInvitationReport> sendMultipleInvitations(
             @RequestParam Long eventId,
             @RequestBody List<String> emails,
             @RequestParam Long invitedByUserId) {
-        List<Invitation> invitations = invitationService.sendMultipleInvitations(eventId, emails, invitedByUserId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(invitations);
+        BulkInvitationReport report = invitationService.sendMultipleInvitations(eventId, emails, invitedByUserId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(report);
+    }
+
+    @PostMapping(path = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importInvitations(
+            @RequestParam Long eventId,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam Long invitedByUserId) {
+        try (InputStream input = file.getInputStream()) {
+            InvitationImportReport report = invitationImporter.importFile(eventId, input, file.getOriginalFilename());
+            return ResponseEntity.status(HttpStatus.CREATED).body(report);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Cannot read uploaded file: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/import/{eventId}/progress")
+    public ResponseEntity<InvitationImportReport> getImportProgress(@PathVariable Long eventId) {
+        return invitationImporter.getProgress(eventId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}/respond")
@@ -92,4 +122,10 @@ public class InvitationController {
         Map<InvitationStatus, Long> statistics = invitationService.getInvitationStatistics(eventId);
         return ResponseEntity.ok(statistics);
     }
+
+    @GetMapping("/statistics")
+    public ResponseEntity<Map<Long, Map<InvitationStatus, Long>>> getInvitationStatisticsForEvents(@RequestParam List<Long> eventIds) {
+        Map<Long, Map<InvitationStatus, Long>> statistics = invitationService.getInvitationStatistics(eventIds);
+        return ResponseEntity.ok(statistics);
+    }
 }
@@ -0,0 +1,70 @@
+package pl.coderslab.invitations;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.coderslab.ChunkedJob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Expires old PENDING invitations without loading them. Each chunk takes the next ids through the
+ * (status, sent_at) index and updates that id range in its own short transaction, so memory use is
+ * constant and row locks are held only briefly. The UPDATE re-checks the status, so an invitation
+ * answered in the meantime is left alone.
+ */
+@Component
+public class InvitationExpiry {
+
+    private final InvitationRepository invitationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter expired;
+    private final int chunkSize;
+    private final long pauseMs;
+
+    public InvitationExpiry(InvitationRepository invitationRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${invitations.expiry.chunk-size:1000}") int chunkSize,
+                            @Value("${invitations.expiry.pause-ms:20}") long pauseMs) {
+        this.invitationRepository = invitationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.expired = Counter.builder("invitations.expiry.expired")
+                .description("Invitations moved to EXPIRED by the expiry job")
+                .register(meterRegistry);
+    }
+
+    public long expireSentBefore(LocalDateTime cutoff) {
+        ChunkedJob job = ChunkedJob.start("Invitation expiry", pauseMs);
+        long total = 0;
+        while (true) {
+            List<Long> ids = invitationRepository.findIdsByStatusAndSentAtBefore(InvitationStatus.PENDING, cutoff,
+                    PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Long fromId = ids.get(0);
+            Long toId = ids.get(ids.size() - 1);
+            Integer updated = transactionTemplate.execute(status ->
+                    invitationRepository.expirePendingInRange(fromId, toId, cutoff));
+            total += updated;
+            expired.increment(updated);
+            System.out.println("Invitation expiry: " + total + " expired so far (ids up to " + toId + ")");
+
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            job.pause();
+        }
+
+        job.finish("expired " + total + " invitations", total);
+        return total;
+    }
+}
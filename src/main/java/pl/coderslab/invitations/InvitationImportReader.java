@@ -0,0 +1,77 @@
+package pl.coderslab.invitations;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads one email address per line from a CSV file (first column, optional "email" header)
+ * or from NDJSON (a JSON string or an object with an "email" field per line).
+ * Lines that cannot be read come back as an empty string, so they are reported as invalid.
+ */
+public class InvitationImportReader {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private final boolean ndjson;
+    private boolean firstLine = true;
+
+    public InvitationImportReader(BufferedReader reader, ObjectMapper objectMapper, String filename) {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+        String lowerName = filename != null ? filename.toLowerCase() : "";
+        this.ndjson = lowerName.endsWith(".ndjson") || lowerName.endsWith(".jsonl");
+    }
+
+    // Next raw address or null at the end of the file; blank lines are skipped
+    public String next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            boolean header = firstLine;
+            if (firstLine && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            firstLine = false;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (ndjson) {
+                return fromJson(line);
+            }
+            String email = firstCsvColumn(line);
+            if (header && email.equalsIgnoreCase("email")) {
+                continue;
+            }
+            return email;
+        }
+        return null;
+    }
+
+    private String fromJson(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (node.isTextual()) {
+                return node.asText();
+            }
+            return node.hasNonNull("email") ? node.get("email").asText() : "";
+        } catch (JsonProcessingException e) {
+            return "";
+        }
+    }
+
+    private static String firstCsvColumn(String line) {
+        String column = line;
+        int comma = line.indexOf(',');
+        if (comma >= 0) {
+            column = line.substring(0, comma);
+        }
+        column = column.trim();
+        if (column.length() >= 2 && column.startsWith("\"") && column.endsWith("\"")) {
+            column = column.substring(1, column.length() - 1);
+        }
+        return column;
+    }
+}
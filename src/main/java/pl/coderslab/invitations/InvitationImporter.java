@@ -0,0 +1,183 @@
+package pl.coderslab.invitations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.coderslab.BloomFilter;
+import pl.coderslab.events.Event;
+import pl.coderslab.events.EventRepository;
+import pl.coderslab.invitations.dto.InvitationImportReport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Imports guest lists line by line. Only the current batch is kept in memory. Two fixed-size Bloom filters
+ * remember the event's invitations from before the import and the addresses seen earlier in the file;
+ * an address neither of them knows is written without a lookup, and only what they cannot rule out goes
+ * to the batched duplicate query. Invitations sent elsewhere while an import runs are not in the first
+ * filter. Each batch is written in its own transaction, so a failure leaves the batches before it
+ * imported. Progress is kept per event.
+ */
+@Component
+public class InvitationImporter {
+
+    private final ConcurrentMap<Long, ImportProgress> imports = new ConcurrentHashMap<>();
+    private final InvitationService invitationService;
+    private final InvitationRepository invitationRepository;
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final long expectedRows;
+    private final int batchSize;
+
+    public InvitationImporter(InvitationService invitationService,
+                              InvitationRepository invitationRepository,
+                              EventRepository eventRepository,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${invitations.import.expected-rows:1000000}") long expectedRows,
+                              @Value("${invitations.import.batch-size:1000}") int batchSize) {
+        this.invitationService = invitationService;
+        this.invitationRepository = invitationRepository;
+        this.eventRepository = eventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.expectedRows = expectedRows;
+        this.batchSize = batchSize;
+    }
+
+    public InvitationImportReport importFile(Long eventId, InputStream input, String filename) throws IOException {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new EntityNotFoundException("Event not found"));
+
+        ImportProgress progress = new ImportProgress(eventId);
+        imports.compute(eventId, (id, previous) -> {
+            if (previous != null && !previous.finished) {
+                throw new IllegalStateException("An invitation import for this event is already running");
+            }
+            return progress;
+        });
+
+        try {
+            InvitationImportReader reader = new InvitationImportReader(
+                    new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), objectMapper, filename);
+            BloomFilter invited = loadInvited(eventId);
+            BloomFilter seen = BloomFilter.create(expectedRows, 0.01);
+            Set<String> batch = new LinkedHashSet<>();
+            Set<String> candidates = new HashSet<>();
+            Set<String> maybeSeen = new HashSet<>();
+
+            String raw;
+            while ((raw = reader.next()) != null) {
+                progress.linesRead++;
+                String email = InvitationService.normalizeEmail(raw);
+                if (email == null) {
+                    progress.invalid++;
+                    continue;
+                }
+                if (batch.contains(email)) {
+                    progress.duplicates++;
+                    continue;
+                }
+                if (seen.mightContain(email)) {
+                    maybeSeen.add(email);
+                    candidates.add(email);
+                } else {
+                    seen.add(email);
+                    if (invited.mightContain(email)) {
+                        candidates.add(email);
+                    }
+                }
+                batch.add(email);
+
+                if (batch.size() == batchSize) {
+                    writeBatch(event, batch, candidates, maybeSeen, progress);
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(event, batch, candidates, maybeSeen, progress);
+            }
+        } finally {
+            progress.finished = true;
+        }
+
+        InvitationImportReport report = progress.snapshot();
+        System.out.println("Invitation import finished: " + report);
+        return report;
+    }
+
+    public Optional<InvitationImportReport> getProgress(Long eventId) {
+        return Optional.ofNullable(imports.get(eventId)).map(ImportProgress::snapshot);
+    }
+
+    // Live invitations the event had before the import, read page by page in email order
+    private BloomFilter loadInvited(Long eventId) {
+        // A filter sized for a handful of entries is too small to rule much out, so it never goes below a batch
+        long expected = Math.max(invitationRepository.countByEventId(eventId), batchSize);
+        BloomFilter invited = BloomFilter.create(expected, 0.01);
+        String after = "";
+        List<String> page;
+        do {
+            page = invitationRepository.findInvitedEmailsAfter(eventId, after, PageRequest.of(0, batchSize));
+            for (String email : page) {
+                invited.add(email);
+                after = email;
+            }
+        } while (page.size() == batchSize);
+        return invited;
+    }
+
+    private void writeBatch(Event event, Set<String> batch, Set<String> candidates, Set<String> maybeSeen,
+                            ImportProgress progress) {
+        Set<String> invited = transactionTemplate.execute(
+                status -> invitationService.inviteNew(event, batch, candidates));
+        for (String email : invited) {
+            // Invited already and the filter saw it earlier in this file - most likely a repeated line
+            if (maybeSeen.contains(email)) {
+                progress.duplicates++;
+            } else {
+                progress.alreadyInvited++;
+            }
+        }
+        progress.sent += batch.size() - invited.size();
+        batch.clear();
+        candidates.clear();
+        maybeSeen.clear();
+        System.out.println("Invitation import for eventId=" + progress.eventId + ": " + progress.linesRead
+                + " lines read, " + progress.sent + " sent");
+    }
+
+    // Written by the importing thread only, read by progress requests
+    private static class ImportProgress {
+        private final Long eventId;
+        private volatile long linesRead;
+        private volatile long sent;
+        private volatile long alreadyInvited;
+        private volatile long duplicates;
+        private volatile long invalid;
+        private volatile boolean finished;
+
+        private ImportProgress(Long eventId) {
+            this.eventId = eventId;
+        }
+
+        private InvitationImportReport snapshot() {
+            return new InvitationImportReport(eventId, linesRead, sent, alreadyInvited, duplicates, invalid, finished);
+        }
+    }
+}
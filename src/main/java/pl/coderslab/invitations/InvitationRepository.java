@@ -1,9 +1,15 @@
 package pl.coderslab.invitations;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import pl.coderslab.invitations.dto.InvitationStatusCount;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,12 +26,42 @@ public interface InvitationRepository extends JpaRepository<Invitation, Long> {
 
     List<Invitation> findByUserIdAndStatusOrderBySentAtDesc(Long userId, InvitationStatus status);
 
-    Optional<Invitation> findByEventIdAndEmailAndStatusNot(Long eventId, String email, InvitationStatus status);
+    // Compares the foreign key - the derived query outer-joins events and cannot use idx_invitations_event_email_status
+    @Query("SELECT i FROM Invitation i WHERE i.event.id = :eventId AND i.email = :email AND i.status <> :status")
+    Optional<Invitation> findByEventIdAndEmailAndStatusNot(@Param("eventId") Long eventId,
+                                                           @Param("email") String email,
+                                                           @Param("status") InvitationStatus status);
+
+    // Emails that already have a live (not declined) invitation to the event - callers pass at most ~1000 at a time
+    @Query("SELECT i.email FROM Invitation i WHERE i.event.id = :eventId " +
+            "AND i.status <> pl.coderslab.invitations.InvitationStatus.DECLINED AND i.email IN :emails")
+    List<String> findInvitedEmails(@Param("eventId") Long eventId, @Param("emails") Collection<String> emails);
+
+    // Next page of the event's live invitation emails after the given one, read along idx_invitations_event_email_status
+    @Query("SELECT DISTINCT i.email FROM Invitation i WHERE i.event.id = :eventId " +
+            "AND i.status <> pl.coderslab.invitations.InvitationStatus.DECLINED AND i.email > :after ORDER BY i.email")
+    List<String> findInvitedEmailsAfter(@Param("eventId") Long eventId, @Param("after") String after, Pageable pageable);
 
     long countByEventId(Long eventId);
 
+    @Query("SELECT new pl.coderslab.invitations.dto.InvitationStatusCount(i.event.id, i.status, COUNT(i)) " +
+            "FROM Invitation i WHERE i.event.id IN :eventIds GROUP BY i.event.id, i.status")
+    List<InvitationStatusCount> countByStatusForEvents(@Param("eventIds") Collection<Long> eventIds);
+
     long countByEventIdAndStatus(Long eventId, InvitationStatus status);
 
-    List<Invitation> findBySentAtBeforeAndStatus(LocalDateTime cutoffDate, InvitationStatus status);
+    // Next expiry chunk, found through idx_invitations_status_sent
+    @Query("SELECT i.id FROM Invitation i WHERE i.status = :status AND i.sentAt < :cutoff ORDER BY i.id")
+    List<Long> findIdsByStatusAndSentAtBefore(@Param("status") InvitationStatus status,
+                                              @Param("cutoff") LocalDateTime cutoff,
+                                              Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Invitation i SET i.status = pl.coderslab.invitations.InvitationStatus.EXPIRED " +
+            "WHERE i.id BETWEEN :fromId AND :toId " +
+            "AND i.status = pl.coderslab.invitations.InvitationStatus.PENDING AND i.sentAt < :cutoff")
+    int expirePendingInRange(@Param("fromId") Long fromId,
+                             @Param("toId") Long toId,
+                             @Param("cutoff") LocalDateTime cutoff);
 
 }
@@ -1,10 +1,15 @@
 package pl.coderslab.invitations;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import pl.coderslab.events.Event;
 import pl.coderslab.events.EventRepository;
+import pl.coderslab.invitations.dto.BulkInvitationReport;
+import pl.coderslab.invitations.dto.EmailInvitationResult;
+import pl.coderslab.invitations.dto.InvitationOutcome;
 import pl.coderslab.notifications.NotificationService;
 import pl.coderslab.registrations.RegistrationService;
 import pl.coderslab.users.User;
@@ -12,26 +17,39 @@ import pl.coderslab.users.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.regex.Pattern;
 
 @Service
 public class InvitationService {
 
+    private static final int BULK_CHUNK_SIZE = 1000;
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+
     private final InvitationRepository invitationRepository;
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
     private final RegistrationService registrationService;
+    private final InvitationExpiry invitationExpiry;
+    private final InvitationStatisticsCache statisticsCache;
+    private final EntityManager entityManager;
 
     public InvitationService(InvitationRepository invitationRepository,
                              EventRepository eventRepository,
                              UserRepository userRepository,
                              NotificationService notificationService,
-                             RegistrationService registrationService) {
+                             RegistrationService registrationService,
+                             InvitationExpiry invitationExpiry,
+                             InvitationStatisticsCache statisticsCache,
+                             EntityManager entityManager) {
         this.invitationRepository = invitationRepository;
         this.eventRepository = eventRepository;
         this.userRepository = userRepository;
         this.notificationService = notificationService;
         this.registrationService = registrationService;
+        this.invitationExpiry = invitationExpiry;
+        this.statisticsCache = statisticsCache;
+        this.entityManager = entityManager;
     }
 
     // Wysyłanie zaproszeń
@@ -39,38 +57,115 @@ public class InvitationService {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new EntityNotFoundException("Event not found"));
 
+        String normalizedEmail = normalizeEmail(email);
+        if (normalizedEmail == null) {
+            throw new IllegalArgumentException("Invalid email address: " + email);
+        }
+
         // Sprawdź czy zaproszenie już istnieje
         Optional<Invitation> existingInvitation = invitationRepository
-                .findByEventIdAndEmailAndStatusNot(eventId, email, InvitationStatus.DECLINED);
+                .findByEventIdAndEmailAndStatusNot(eventId, normalizedEmail, InvitationStatus.DECLINED);
 
         if (existingInvitation.isPresent()) {
             throw new IllegalStateException("Invitation already sent to this email for this event");
         }
 
-        Invitation invitation = new Invitation();
-        invitation.setEmail(email);
-        invitation.setEvent(event);
-        invitation.setStatus(InvitationStatus.PENDING);
-        invitation.setSentAt(LocalDateTime.now());
+        Invitation saved = invitationRepository.save(newInvitation(event, normalizedEmail));
+        statisticsCache.evictAfterCommit(eventId);
+        return saved;
+    }
 
-        return invitationRepository.save(invitation);
+    // Wysyłanie wielu zaproszeń - event ładowany raz, duplikaty sprawdzane jednym zapytaniem IN na paczkę
+    @Transactional
+    public BulkInvitationReport sendMultipleInvitations(Long eventId, List<String> emails, Long invitedByUserId) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new EntityNotFoundException("Event not found"));
+
+        List<EmailInvitationResult> results = new ArrayList<>();
+        Set<String> candidates = new LinkedHashSet<>();
+        for (String email : emails) {
+            String normalized = normalizeEmail(email);
+            if (normalized == null) {
+                results.add(new EmailInvitationResult(email, InvitationOutcome.INVALID_EMAIL));
+            } else if (!candidates.add(normalized)) {
+                results.add(new EmailInvitationResult(normalized, InvitationOutcome.DUPLICATE));
+            }
+        }
+
+        int sent = 0;
+        int alreadyInvited = 0;
+        List<String> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        Iterator<String> iterator = candidates.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == BULK_CHUNK_SIZE || !iterator.hasNext()) {
+                Set<String> invited = inviteNew(event, chunk);
+                for (String email : chunk) {
+                    if (invited.contains(email)) {
+                        results.add(new EmailInvitationResult(email, InvitationOutcome.ALREADY_INVITED));
+                        alreadyInvited++;
+                    } else {
+                        results.add(new EmailInvitationResult(email, InvitationOutcome.SENT));
+                        sent++;
+                    }
+                }
+                chunk.clear();
+            }
+        }
+
+        int invalid = (int) results.stream().filter(r -> r.outcome() == InvitationOutcome.INVALID_EMAIL).count();
+        int duplicates = (int) results.stream().filter(r -> r.outcome() == InvitationOutcome.DUPLICATE).count();
+        System.out.println("Bulk invitations for eventId=" + eventId + ": " + sent + " sent, " + alreadyInvited
+                + " already invited, " + duplicates + " duplicates, " + invalid + " invalid");
+        return new BulkInvitationReport(eventId, sent, alreadyInvited, duplicates, invalid, results);
     }
 
-    // Wysyłanie wielu zaproszeń
-    public List<Invitation> sendMultipleInvitations(Long eventId, List<String> emails, Long invitedByUserId) {
-        List<Invitation> invitations = new ArrayList<>();
+    // Saves invitations for the (normalized, distinct) emails that have no live invitation yet
+    // and returns those that already had one. Must run inside a transaction.
+    Set<String> inviteNew(Event event, Collection<String> emails) {
+        return inviteNew(event, emails, emails);
+    }
 
+    // As above, but only the candidates are looked up - the caller knows the other emails have no invitation
+    Set<String> inviteNew(Event event, Collection<String> emails, Collection<String> candidates) {
+        Set<String> invited = new HashSet<>();
+        if (!candidates.isEmpty()) {
+            for (String email : invitationRepository.findInvitedEmails(event.getId(), candidates)) {
+                invited.add(email.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        List<Invitation> invitations = new ArrayList<>();
         for (String email : emails) {
-            try {
-                Invitation invitation = sendInvitation(eventId, email, invitedByUserId);
-                invitations.add(invitation);
-            } catch (IllegalStateException e) {
-                // Loguj błąd ale kontynuuj z pozostałymi emailami
-                System.err.println("Failed to send invitation to " + email + ": " + e.getMessage());
+            if (!invited.contains(email)) {
+                invitations.add(newInvitation(event, email));
             }
         }
+        invitationRepository.saveAll(invitations);
+        statisticsCache.evictAfterCommit(event.getId());
 
-        return invitations;
+        // Written rows are not needed again - keeps dirty checking from growing with the list
+        invitationRepository.flush();
+        entityManager.clear();
+        return invited;
+    }
+
+    // Trimmed and lower-cased, null when it does not look like an email address
+    static String normalizeEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        String normalized = email.trim().toLowerCase(Locale.ROOT);
+        return EMAIL_PATTERN.matcher(normalized).matches() ? normalized : null;
+    }
+
+    private Invitation newInvitation(Event event, String email) {
+        Invitation invitation = new Invitation();
+        invitation.setEmail(email);
+        invitation.setEvent(event);
+        invitation.setStatus(InvitationStatus.PENDING);
+        invitation.setSentAt(LocalDateTime.now());
+        return invitation;
     }
 
     // Odpowiedź na zaproszenie
@@ -102,7 +197,9 @@ public class InvitationService {
             }
         }
 
-        return invitationRepository.save(invitation);
+        Invitation saved = invitationRepository.save(invitation);
+        statisticsCache.evictAfterCommit(invitation.getEvent().getId());
+        return saved;
     }
 
     // Pobieranie zaproszeń
@@ -136,6 +233,7 @@ public class InvitationService {
         }
 
         invitationRepository.delete(invitation);
+        statisticsCache.evictAfterCommit(invitation.getEvent().getId());
 
         // Powiadom użytkownika o anulowaniu (jeśli istnieje)
         if (invitation.getUser() != null) {
@@ -168,33 +266,28 @@ public class InvitationService {
 
     // Statystyki
     public long getInvitationCount(Long eventId, InvitationStatus status) {
+        Map<InvitationStatus, Long> statistics = getInvitationStatistics(eventId);
         if (status != null) {
-            return invitationRepository.countByEventIdAndStatus(eventId, status);
+            return statistics.get(status);
         }
-        return invitationRepository.countByEventId(eventId);
+        return statistics.values().stream().mapToLong(Long::longValue).sum();
     }
 
     public Map<InvitationStatus, Long> getInvitationStatistics(Long eventId) {
-        Map<InvitationStatus, Long> stats = new HashMap<>();
-        for (InvitationStatus status : InvitationStatus.values()) {
-            stats.put(status, invitationRepository.countByEventIdAndStatus(eventId, status));
-        }
-        return stats;
+        return statisticsCache.get(List.of(eventId)).get(eventId);
+    }
+
+    // Statystyki dla całej strony eventów jednym zapytaniem
+    public Map<Long, Map<InvitationStatus, Long>> getInvitationStatistics(Collection<Long> eventIds) {
+        return statisticsCache.get(new LinkedHashSet<>(eventIds));
     }
 
     // Automatyczne wygaszanie starych zaproszeń
     @Scheduled(cron = "0 0 1 * * ?") // Codziennie o 1:00
     public void expireOldInvitations() {
         LocalDateTime cutoffDate = LocalDateTime.now().minusDays(30); // 30 dni
-        List<Invitation> expiredInvitations = invitationRepository
-                .findBySentAtBeforeAndStatus(cutoffDate, InvitationStatus.PENDING);
-
-        for (Invitation invitation : expiredInvitations) {
-            invitation.setStatus(InvitationStatus.EXPIRED);
-        }
-
-        if (!expiredInvitations.isEmpty()) {
-            invitationRepository.saveAll(expiredInvitations);
+        if (invitationExpiry.expireSentBefore(cutoffDate) > 0) {
+            statisticsCache.evictAllAfterCommit();
         }
     }
 }
@@ -0,0 +1,103 @@
+package pl.coderslab.invitations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.coderslab.TransactionHooks;
+import pl.coderslab.invitations.dto.InvitationStatusCount;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-event invitation counts by status. Misses for any number of events are loaded with a single
+ * GROUP BY query; entries are dropped after a commit that changes invitations of the event.
+ * Any event id can be asked for, so entries expire after the TTL and the cache is bounded.
+ */
+@Component
+public class InvitationStatisticsCache {
+
+    private final Cache<Long, Map<InvitationStatus, Long>> statistics;
+    private final AtomicLong evictions = new AtomicLong();
+    private final InvitationRepository invitationRepository;
+
+    public InvitationStatisticsCache(InvitationRepository invitationRepository,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${invitations.statistics-cache.ttl-seconds:300}") long ttlSeconds,
+                                     @Value("${invitations.statistics-cache.max-entries:10000}") int maxEntries) {
+        this.invitationRepository = invitationRepository;
+        this.statistics = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(Math.max(1, maxEntries))
+                .build();
+
+        Gauge.builder("invitations.statistics.cache.size", statistics, Cache::estimatedSize)
+                .description("Events with invitation statistics held in memory")
+                .register(meterRegistry);
+    }
+
+    public Map<Long, Map<InvitationStatus, Long>> get(Collection<Long> eventIds) {
+        Map<Long, Map<InvitationStatus, Long>> result = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long eventId : eventIds) {
+            Map<InvitationStatus, Long> cached = statistics.getIfPresent(eventId);
+            if (cached != null) {
+                result.put(eventId, cached);
+            } else {
+                missing.add(eventId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long evictionsBefore = evictions.get();
+            Map<Long, Map<InvitationStatus, Long>> loaded = new HashMap<>();
+            for (Long eventId : missing) {
+                loaded.put(eventId, emptyStatistics());
+            }
+            for (InvitationStatusCount count : invitationRepository.countByStatusForEvents(missing)) {
+                loaded.get(count.eventId()).put(count.status(), count.count());
+            }
+            loaded.forEach((eventId, counts) -> {
+                Map<InvitationStatus, Long> entry = Collections.unmodifiableMap(counts);
+                // An eviction during the load may belong to one of these events - serve the counts once, don't keep them
+                statistics.put(eventId, entry);
+                if (evictions.get() != evictionsBefore) {
+                    statistics.asMap().remove(eventId, entry);
+                }
+                result.put(eventId, entry);
+            });
+        }
+        return result;
+    }
+
+    public void evictAfterCommit(Long eventId) {
+        TransactionHooks.afterCommit(() -> {
+            statistics.invalidate(eventId);
+            evictions.incrementAndGet();
+        });
+    }
+
+    public void evictAllAfterCommit() {
+        TransactionHooks.afterCommit(() -> {
+            statistics.invalidateAll();
+            evictions.incrementAndGet();
+        });
+    }
+
+    public int size() {
+        statistics.cleanUp();
+        return (int) statistics.estimatedSize();
+    }
+
+    private static Map<InvitationStatus, Long> emptyStatistics() {
+        Map<InvitationStatus, Long> counts = new EnumMap<>(InvitationStatus.class);
+        for (InvitationStatus status : InvitationStatus.values()) {
+            counts.put(status, 0L);
+        }
+        return counts;
+    }
+}
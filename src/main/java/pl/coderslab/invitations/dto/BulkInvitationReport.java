@@ -0,0 +1,13 @@
+package pl.coderslab.invitations.dto;
+
+import java.util.List;
+
+public record BulkInvitationReport(
+        Long eventId,
+        int sent,
+        int alreadyInvited,
+        int duplicates,
+        int invalid,
+        List<EmailInvitationResult> results
+) {
+}
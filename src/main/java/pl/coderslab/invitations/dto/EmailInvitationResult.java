@@ -0,0 +1,7 @@
+package pl.coderslab.invitations.dto;
+
+public record EmailInvitationResult(
+        String email,
+        InvitationOutcome outcome
+) {
+}
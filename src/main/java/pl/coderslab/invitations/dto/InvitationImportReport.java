@@ -0,0 +1,12 @@
+package pl.coderslab.invitations.dto;
+
+public record InvitationImportReport(
+        Long eventId,
+        long linesRead,
+        long sent,
+        long alreadyInvited,
+        long duplicates,
+        long invalid,
+        boolean finished
+) {
+}
@@ -0,0 +1,8 @@
+package pl.coderslab.invitations.dto;
+
+public enum InvitationOutcome {
+    SENT,
+    ALREADY_INVITED,
+    DUPLICATE,
+    INVALID_EMAIL
+}
@@ -0,0 +1,10 @@
+package pl.coderslab.invitations.dto;
+
+import pl.coderslab.invitations.InvitationStatus;
+
+public record InvitationStatusCount(
+        Long eventId,
+        InvitationStatus status,
+        long count
+) {
+}
@@ -6,6 +6,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import pl.coderslab.events.Event;
 
 import java.math.BigDecimal;
@@ -14,6 +16,8 @@ import java.util.Set;
 
 @Entity
 @Table(name="locations")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "locations")
 @Setter
 @Getter
 public class Location {
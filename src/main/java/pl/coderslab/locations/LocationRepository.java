@@ -1,10 +1,14 @@
 package pl.coderslab.locations;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.PathVariable;
+import pl.coderslab.cache.ReferenceDataCache;
 
 import java.awt.print.Pageable;
 import java.time.LocalDateTime;
@@ -13,6 +17,12 @@ import java.util.Optional;
 
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
+    // Rendered in most forms - ids of the list come from the query cache, the rows from the entity cache
+    @Override
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceDataCache.LOCATIONS_QUERY_REGION)})
+    List<Location> findAll();
+
     List<Location> findByIsActiveTrue();
 
     List<Location> findByCityContainingIgnoreCaseAndIsActiveTrue(String city);
@@ -2,6 +2,8 @@ package pl.coderslab.locations;
 
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.stereotype.Service;
+import pl.coderslab.cache.ReferenceDataCache;
+import pl.coderslab.events.EventSearchIndex;
 
 
 import java.math.BigDecimal;
@@ -12,9 +14,14 @@ import java.util.List;
 public class LocationService {
 
     private final LocationRepository locationRepository;
+    private final EventSearchIndex eventSearchIndex;
+    private final ReferenceDataCache referenceDataCache;
 
-    public LocationService(LocationRepository locationRepository) {
+    public LocationService(LocationRepository locationRepository, EventSearchIndex eventSearchIndex,
+                           ReferenceDataCache referenceDataCache) {
         this.locationRepository = locationRepository;
+        this.eventSearchIndex = eventSearchIndex;
+        this.referenceDataCache = referenceDataCache;
     }
 
     // CRUD Operations
@@ -33,7 +40,9 @@ public class LocationService {
     public Location createLocation(Location location) {
         validateLocation(location);
         location.setIsActive(true);
-        return locationRepository.save(location);
+        Location saved = locationRepository.save(location);
+        referenceDataCache.evictLocationsAfterCommit();
+        return saved;
     }
 
     public Location updateLocation(Long id, Location locationDetails) {
@@ -50,7 +59,11 @@ public class LocationService {
         location.setDescription(locationDetails.getDescription());
         location.setContactInfo(locationDetails.getContactInfo());
 
-        return locationRepository.save(location);
+        Location saved = locationRepository.save(location);
+        // Name and city are searchable on the events held here
+        eventSearchIndex.reindexLocationAfterCommit(id);
+        referenceDataCache.evictLocationAfterCommit(id);
+        return saved;
     }
 
     public void deleteLocation(Long id) {
@@ -66,7 +79,9 @@ public class LocationService {
     public Location deactivateLocation(Long id) {
         Location location = getLocationById(id);
         location.setIsActive(false);
-        return locationRepository.save(location);
+        Location saved = locationRepository.save(location);
+        referenceDataCache.evictLocationAfterCommit(id);
+        return saved;
     }
 
     public Location activateLocation(Long id) {
@@ -10,12 +10,16 @@ import pl.coderslab.users.User;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_user_created_id", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_notifications_read_created", columnList = "is_read, created_at")
+})
 @Setter
 @Getter
 public class Notification {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_seq")
+    @SequenceGenerator(name = "notifications_seq", sequenceName = "notifications_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -26,12 +30,20 @@ public class Notification {
     @JoinColumn(name = "event_id")
     private Event event;
 
-    @Column(nullable = false)
+    // Null when the text comes from a shared payload
     private String message;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payload_id")
+    private NotificationPayload payload;
+
     @Column(nullable = false)
     private Boolean isRead = false;
 
     @CreationTimestamp
     private LocalDateTime createdAt;
+
+    public String renderMessage() {
+        return payload != null ? payload.render() : message;
+    }
 }
@@ -1,7 +1,9 @@
 package pl.coderslab.notifications;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import pl.coderslab.registrations.RegistrationService;
 
 import java.util.List;
@@ -9,6 +11,8 @@ import java.util.List;
 @RestController
 @RequestMapping("/notifications")
 public class NotificationController {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final NotificationService notificationService;
 
     public NotificationController(NotificationService notificationService, RegistrationService registrationService) {
@@ -16,16 +20,28 @@ public class NotificationController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<NotificationDTO>> getUserNotifications(@PathVariable Long userId) {
-        List<NotificationDTO> notifications = notificationService.getUserNotifications(userId).stream()
-                .map(notification -> new NotificationDTO(
-                        notification.getUser().getLastName(),
-                        notification.getEvent().getTitle() ,
-                        notification.getMessage(),
-                        notification.getIsRead()
-                ))
-                .toList();
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<?> getUserNotifications(@PathVariable Long userId,
+                                                  @RequestParam(required = false) String before,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        try {
+            List<Notification> page = notificationService.getUserNotificationsPage(userId, before, limit);
+            List<NotificationDTO> notifications = page.stream()
+                    .map(notification -> new NotificationDTO(
+                            notification.getUser().getLastName(),
+                            notification.getEvent() != null ? notification.getEvent().getTitle() : null,
+                            notification.renderMessage(),
+                            notification.getIsRead()
+                    ))
+                    .toList();
+            // A full page means there may be more - the client passes this back as ?before=
+            String nextCursor = page.size() == limit ? NotificationCursor.of(page.get(page.size() - 1)).encode() : null;
+            return ResponseEntity.ok(new NotificationPage(notifications, nextCursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/user/{userId}/unread")
@@ -34,7 +50,7 @@ public class NotificationController {
                 .map(notification -> new NotificationDTO(
                         notification.getUser().getLastName(),
                         notification.getEvent().getTitle() ,
-                        notification.getMessage(),
+                        notification.renderMessage(),
                         notification.getIsRead()
                 ))
                 .toList();
@@ -47,6 +63,11 @@ public class NotificationController {
         return ResponseEntity.ok(count);
     }
 
+    @GetMapping(path = "/user/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(@PathVariable Long userId) {
+        return notificationService.subscribe(userId);
+    }
+
     @PutMapping("/{id}/read")
     public ResponseEntity<String> markAsRead(@PathVariable Long id, @RequestParam Long userId) {
         notificationService.markAsRead(id, userId);
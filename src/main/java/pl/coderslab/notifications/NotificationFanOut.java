@@ -0,0 +1,136 @@
+package pl.coderslab.notifications;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.coderslab.TransactionHooks;
+import pl.coderslab.events.Event;
+import pl.coderslab.events.EventRepository;
+import pl.coderslab.users.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes "event changed" broadcasts off the request thread. One job per broadcast: the rendered content is
+ * stored once as a {@link NotificationPayload}, recipient ids come from a single projection query and the
+ * per-recipient rows are saved in chunks, each chunk in its own transaction.
+ * The job queue is bounded - when it is full the submitting thread runs the job itself (back-pressure).
+ */
+@Component
+public class NotificationFanOut {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationPayloadRepository payloadRepository;
+    private final NotificationStream notificationStream;
+    private final UserRepository userRepository;
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Counter written;
+
+    public NotificationFanOut(NotificationRepository notificationRepository,
+                              NotificationPayloadRepository payloadRepository,
+                              NotificationStream notificationStream,
+                              UserRepository userRepository,
+                              EventRepository eventRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${notifications.fan-out.workers:2}") int workers,
+                              @Value("${notifications.fan-out.queue-capacity:1000}") int queueCapacity) {
+        this.notificationRepository = notificationRepository;
+        this.payloadRepository = payloadRepository;
+        this.notificationStream = notificationStream;
+        this.userRepository = userRepository;
+        this.eventRepository = eventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-fan-out-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        Gauge.builder("notifications.fanout.queue.depth", queue, BlockingQueue::size)
+                .description("Broadcast jobs waiting for a fan-out worker")
+                .register(meterRegistry);
+        this.written = Counter.builder("notifications.fanout.written")
+                .description("Notifications written by fan-out jobs")
+                .register(meterRegistry);
+    }
+
+    // Queued after the caller's transaction commits, so workers see its changes
+    public void broadcast(Long eventId, NotificationTemplate template, List<String> params) {
+        TransactionHooks.afterCommit(() -> executor.execute(() -> fanOut(eventId, template, params)));
+    }
+
+    // Synchronous variant for callers that already run in a transaction
+    public void write(List<Long> userIds, NotificationTemplate template, List<String> params, Long eventId) {
+        writeBatch(userIds, savePayload(template, params), eventId);
+    }
+
+    public NotificationPayload savePayload(NotificationTemplate template, List<String> params) {
+        NotificationPayload payload = new NotificationPayload();
+        payload.setTemplate(template);
+        payload.setParams(new ArrayList<>(params));
+        return payloadRepository.save(payload);
+    }
+
+    // One payload for many users, without loading any of them - saveAll is sent as JDBC batches
+    public void writeBatch(List<Long> userIds, NotificationPayload payload, Long eventId) {
+        Event event = eventId != null ? eventRepository.getReferenceById(eventId) : null;
+
+        List<Notification> notifications = new ArrayList<>();
+        for (Long userId : userIds) {
+            Notification notification = new Notification();
+            notification.setUser(userRepository.getReferenceById(userId));
+            notification.setEvent(event);
+            notification.setPayload(payload);
+            notifications.add(notification);
+        }
+        notificationStream.notificationsCreated(notificationRepository.saveAll(notifications));
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private void fanOut(Long eventId, NotificationTemplate template, List<String> params) {
+        try {
+            List<Long> recipients = notificationRepository.findRegisteredUserIdsForEvent(eventId);
+            if (recipients.isEmpty()) {
+                return;
+            }
+            NotificationPayload payload = transactionTemplate.execute(status -> savePayload(template, params));
+            for (int from = 0; from < recipients.size(); from += CHUNK_SIZE) {
+                List<Long> chunk = recipients.subList(from, Math.min(from + CHUNK_SIZE, recipients.size()));
+                transactionTemplate.executeWithoutResult(status -> writeBatch(chunk, payload, eventId));
+                written.increment(chunk.size());
+            }
+        } catch (Exception e) {
+            System.err.println("Notification fan-out failed for eventId=" + eventId + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,9 @@
+package pl.coderslab.notifications;
+
+import java.util.List;
+
+public record NotificationPage(
+        List<NotificationDTO> notifications,
+        String nextCursor
+) {
+}
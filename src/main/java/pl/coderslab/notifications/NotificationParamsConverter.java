@@ -0,0 +1,40 @@
+package pl.coderslab.notifications;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Template parameters are kept as a JSON array in a single column
+@Converter
+public class NotificationParamsConverter implements AttributeConverter<List<String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> PARAMS_TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<String> params) {
+        try {
+            return MAPPER.writeValueAsString(params != null ? params : List.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize notification params", e);
+        }
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String column) {
+        if (column == null || column.isBlank()) {
+            return new ArrayList<>();
+        }
+        try {
+            return MAPPER.readValue(column, PARAMS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read notification params: " + column, e);
+        }
+    }
+}
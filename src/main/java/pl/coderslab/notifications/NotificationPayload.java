@@ -0,0 +1,39 @@
+package pl.coderslab.notifications;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Shared content of a notification sent to many users - every recipient row only points here
+@Entity
+@Table(name = "notification_payloads")
+@BatchSize(size = 50)
+@Setter
+@Getter
+public class NotificationPayload {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_payloads_seq")
+    @SequenceGenerator(name = "notification_payloads_seq", sequenceName = "notification_payloads_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "template_key", nullable = false, length = 50)
+    private NotificationTemplate template;
+
+    @Convert(converter = NotificationParamsConverter.class)
+    @Column(length = 2000)
+    private List<String> params = new ArrayList<>();
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    public String render() {
+        return template.render(params);
+    }
+}
@@ -0,0 +1,21 @@
+package pl.coderslab.notifications;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface NotificationPayloadRepository extends JpaRepository<NotificationPayload, Long> {
+
+    // Payloads whose recipient rows were all deleted; the cutoff skips payloads of a fan-out still in progress
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM NotificationPayload p WHERE p.createdAt < :cutoffDate " +
+            "AND NOT EXISTS (SELECT n.id FROM Notification n WHERE n.payload = p)")
+    int deleteUnreferencedCreatedBefore(@Param("cutoffDate") LocalDateTime cutoffDate);
+}
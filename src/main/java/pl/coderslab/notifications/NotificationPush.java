@@ -0,0 +1,9 @@
+package pl.coderslab.notifications;
+
+public record NotificationPush(
+        Long notificationId,
+        Long eventId,
+        String message,
+        long unreadCount
+) {
+}
@@ -1,12 +1,15 @@
 package pl.coderslab.notifications;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.coderslab.users.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,10 +19,52 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     List<Notification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(Long userId);
 
+    // Keyset pagination - both queries walk idx_notifications_user_created_id backwards and stop after one page
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user LEFT JOIN FETCH n.event " +
+            "WHERE n.user.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user LEFT JOIN FETCH n.event " +
+            "WHERE n.user.id = :userId AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageBefore(@Param("userId") Long userId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
     long countByUserIdAndIsReadFalse(Long userId);
 
-    void deleteByCreatedAtBeforeAndIsReadTrue(LocalDateTime cutoffDate);
+    // One statement for every unread row of the user, found through idx_notifications_user_read_created
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllAsReadByUserId(@Param("userId") Long userId);
+
+    // Next retention chunk after the previous one, found through idx_notifications_read_created
+    @Query("SELECT n.id FROM Notification n LEFT JOIN n.payload p WHERE n.id > :afterId AND n.isRead = true AND n.createdAt < :cutoff " +
+            "AND ((:includePlain = true AND p IS NULL) OR p.template IN :templates) ORDER BY n.id")
+    List<Long> findExpiredIds(@Param("afterId") long afterId,
+                              @Param("cutoff") LocalDateTime cutoff,
+                              @Param("includePlain") boolean includePlain,
+                              @Param("templates") Collection<NotificationTemplate> templates,
+                              Pageable pageable);
+
+    // Same predicate as findExpiredIds, limited to the primary-key range of one chunk
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id BETWEEN :fromId AND :toId AND n.isRead = true AND n.createdAt < :cutoff " +
+            "AND ((:includePlain = true AND n.payload IS NULL) OR n.payload.id IN " +
+            "(SELECT p.id FROM NotificationPayload p WHERE p.template IN :templates))")
+    int deleteExpiredInRange(@Param("fromId") Long fromId,
+                             @Param("toId") Long toId,
+                             @Param("cutoff") LocalDateTime cutoff,
+                             @Param("includePlain") boolean includePlain,
+                             @Param("templates") Collection<NotificationTemplate> templates);
 
     @Query("SELECT DISTINCT r.user FROM Registration r WHERE r.event.id = :eventId AND r.status = 'CONFIRMED'")
     List<User> findRegisteredUsersForEvent(@Param("eventId") Long eventId);
+
+    @Query("SELECT DISTINCT r.user.id FROM Registration r WHERE r.event.id = :eventId AND r.status = 'CONFIRMED'")
+    List<Long> findRegisteredUserIdsForEvent(@Param("eventId") Long eventId);
+
+    @Query("SELECT DISTINCT n.user.id FROM Notification n WHERE n.event.id = :eventId AND n.isRead = false")
+    List<Long> findUserIdsWithUnreadForEvent(@Param("eventId") Long eventId);
 }
@@ -0,0 +1,106 @@
+package pl.coderslab.notifications;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.coderslab.ChunkedJob;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Deletes read notifications older than their retention period in bounded chunks. Each chunk picks the next
+ * ids through the (is_read, created_at) index and deletes that primary-key range in its own short transaction,
+ * then pauses so that the job never holds locks on the table for long.
+ * Retention is configured per template as notifications.retention.days.<TEMPLATE>, notifications without
+ * a template and templates without an entry use notifications.retention.default-days.
+ */
+@Component
+public class NotificationRetention {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationPayloadRepository payloadRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Environment environment;
+    private final Counter deleted;
+    private final int defaultDays;
+    private final int chunkSize;
+    private final long pauseMs;
+
+    public NotificationRetention(NotificationRepository notificationRepository,
+                                 NotificationPayloadRepository payloadRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 Environment environment,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${notifications.retention.default-days:30}") int defaultDays,
+                                 @Value("${notifications.retention.chunk-size:5000}") int chunkSize,
+                                 @Value("${notifications.retention.pause-ms:50}") long pauseMs) {
+        this.notificationRepository = notificationRepository;
+        this.payloadRepository = payloadRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.environment = environment;
+        this.defaultDays = defaultDays;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.deleted = Counter.builder("notifications.retention.deleted")
+                .description("Notifications removed by the retention job")
+                .register(meterRegistry);
+    }
+
+    public long run() {
+        ChunkedJob job = ChunkedJob.start("Notification retention", pauseMs);
+        long total = 0;
+        for (Map.Entry<Integer, List<NotificationTemplate>> group : templatesByRetentionDays().entrySet()) {
+            int days = group.getKey();
+            total += purge(job, LocalDateTime.now().minusDays(days), days == defaultDays, group.getValue());
+        }
+
+        transactionTemplate.executeWithoutResult(status ->
+                payloadRepository.deleteUnreferencedCreatedBefore(LocalDateTime.now().minusDays(1)));
+
+        job.finish("deleted " + total + " rows", total);
+        return total;
+    }
+
+    // Templates sharing a retention period are purged in one pass; plain notifications go with the default period
+    private Map<Integer, List<NotificationTemplate>> templatesByRetentionDays() {
+        Map<Integer, List<NotificationTemplate>> groups = new TreeMap<>();
+        groups.put(defaultDays, new ArrayList<>());
+        for (NotificationTemplate template : NotificationTemplate.values()) {
+            int days = environment.getProperty("notifications.retention.days." + template.name(), Integer.class, defaultDays);
+            groups.computeIfAbsent(days, d -> new ArrayList<>()).add(template);
+        }
+        return groups;
+    }
+
+    private long purge(ChunkedJob job, LocalDateTime cutoff, boolean includePlain, List<NotificationTemplate> templates) {
+        long purged = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = notificationRepository.findExpiredIds(afterId, cutoff, includePlain, templates, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                return purged;
+            }
+            Long fromId = ids.get(0);
+            Long toId = ids.get(ids.size() - 1);
+            Integer removed = transactionTemplate.execute(status ->
+                    notificationRepository.deleteExpiredInRange(fromId, toId, cutoff, includePlain, templates));
+            purged += removed;
+            deleted.increment(removed);
+            afterId = toId;
+
+            if (ids.size() < chunkSize) {
+                return purged;
+            }
+            job.pause();
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package pl.coderslab.notifications;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import pl.coderslab.events.Event;
 import pl.coderslab.events.EventRepository;
 import pl.coderslab.users.User;
 import pl.coderslab.users.UserRepository;
 
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
@@ -16,13 +19,21 @@ import java.util.List;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final NotificationRetention notificationRetention;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
+    private final NotificationFanOut notificationFanOut;
+    private final NotificationStream notificationStream;
+    private final UnreadCountCache unreadCountCache;
 
-    public NotificationService(NotificationRepository notificationRepository, UserRepository userRepository, EventRepository eventRepository) {
+    public NotificationService(NotificationRepository notificationRepository, NotificationRetention notificationRetention, UserRepository userRepository, EventRepository eventRepository, NotificationFanOut notificationFanOut, NotificationStream notificationStream, UnreadCountCache unreadCountCache) {
         this.notificationRepository = notificationRepository;
+        this.notificationRetention = notificationRetention;
         this.userRepository = userRepository;
         this.eventRepository = eventRepository;
+        this.notificationFanOut = notificationFanOut;
+        this.notificationStream = notificationStream;
+        this.unreadCountCache = unreadCountCache;
     }
 
     public Notification createNotification(Long userId, String message, Long eventId) {
@@ -39,10 +50,16 @@ public class NotificationService {
         }
         Notification saved = notificationRepository.save(notification);
         System.out.println(">>> Saved notification ID=" + saved.getId());
+        notificationStream.notificationsCreated(List.of(saved));
 
         return saved;
     }
 
+    // Many recipients of the same message share one payload row
+    public void createNotifications(List<Long> userIds, NotificationTemplate template, Long eventId, String... params) {
+        notificationFanOut.write(userIds, template, List.of(params), eventId);
+    }
+
     // Registering notification
     public void notifyRegistrationConfirmed(Long userId, Long eventId) {
         Event event = eventRepository.findById(eventId).orElseThrow(() -> new EntityNotFoundException("Event not found"));
@@ -58,46 +75,45 @@ public class NotificationService {
         createNotification(userId, message, eventId);
     }
 
+    public void notifyAddedToWaitlist(Long userId, Event event) {
+        String message = String.format("Event '%s' jest pełny - zostałeś dodany do listy oczekujących", event.getTitle());
+        createNotification(userId, message, event.getId());
+    }
+
+    // One batch for every user promoted in the same transaction
+    public void notifyPromotedFromWaitlist(Event event, List<Long> userIds) {
+        createNotifications(userIds, NotificationTemplate.PROMOTED_FROM_WAITLIST, event.getId(), event.getTitle());
+    }
+
     // Changes in event
     public void notifyEventUpdated(Long eventId, String changeDescription) {
         Event event = eventRepository.findById(eventId).orElseThrow(() -> new EntityNotFoundException("Event not found"));
 
-        // Find all registered users
-        List<User> registeredUsers = notificationRepository.findRegisteredUsersForEvent(eventId);
-
-        String message = String.format("Event '%s' został zaktualizowany: %s", event.getTitle(), changeDescription);
-
-        for (User user : registeredUsers) {
-            createNotification(user.getId(), message, eventId);
-        }
+        notificationFanOut.broadcast(eventId, NotificationTemplate.EVENT_UPDATED, List.of(event.getTitle(), changeDescription));
     }
 
     public void notifyEventCancelled(Long eventId) {
         Event event = eventRepository.findById(eventId).orElseThrow(() -> new EntityNotFoundException("Event not found"));
 
-        List<User> registeredUsers = notificationRepository.findRegisteredUsersForEvent(eventId);
-        String message = String.format("Event '%s' został odwołany", event.getTitle());
-
-        for (User user : registeredUsers) {
-            createNotification(user.getId(), message, eventId);
-        }
+        notificationFanOut.broadcast(eventId, NotificationTemplate.EVENT_CANCELLED, List.of(event.getTitle()));
     }
 
     // Reminders
     public void sendEventReminder(Long eventId) {
         Event event = eventRepository.findById(eventId).orElseThrow(() -> new EntityNotFoundException("Event not found"));
 
-        List<User> registeredUsers = notificationRepository.findRegisteredUsersForEvent(eventId);
-        String message = String.format("Przypomnienie: Event '%s' rozpocznie się %s", event.getTitle(), event.getStartAt().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")));
-
-        for (User user : registeredUsers) {
-            createNotification(user.getId(), message, eventId);
-        }
+        String startAt = event.getStartAt().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
+        notificationFanOut.broadcast(eventId, NotificationTemplate.EVENT_REMINDER, List.of(event.getTitle(), startAt));
     }
 
     // Getting all notifications
-    public List<Notification> getUserNotifications(Long userId) {
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    public List<Notification> getUserNotificationsPage(Long userId, String before, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        if (before == null || before.isBlank()) {
+            return notificationRepository.findFirstPage(userId, page);
+        }
+        NotificationCursor cursor = NotificationCursor.decode(before);
+        return notificationRepository.findPageBefore(userId, cursor.createdAt(), cursor.id(), page);
     }
 
     public List<Notification> getUnreadNotifications(Long userId) {
@@ -112,27 +128,39 @@ public class NotificationService {
             throw new SecurityException("Cannot access other user's notification");
         }
 
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
+        if (!notification.getIsRead()) {
+            notification.setIsRead(true);
+            notificationRepository.save(notification);
+            notificationStream.unreadCountChanged(userId, -1);
+        }
     }
 
+    // One UPDATE of the unread rows, no entities loaded. A notification that commits after it stays unread
+    @Transactional
     public void markAllAsRead(Long userId) {
-        List<Notification> unreadNotifications = getUnreadNotifications(userId);
-        for (Notification notification : unreadNotifications) {
-            notification.setIsRead(true);
-        }
-        notificationRepository.saveAll(unreadNotifications);
+        notificationRepository.markAllAsReadByUserId(userId);
+        notificationStream.unreadCountReset(userId);
     }
 
     // Unread notifications
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return unreadCountCache.get(userId);
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        return notificationStream.subscribe(userId);
+    }
+
+    // Unread notifications of a deleted event go with it (cascade), so their owners' counters are reloaded
+    public void eventDeleted(Long eventId) {
+        for (Long userId : notificationRepository.findUserIdsWithUnreadForEvent(eventId)) {
+            notificationStream.unreadCountReset(userId);
+        }
     }
 
     // Deleting old notifications
     @Scheduled(cron = "0 0 2 * * ?") // Everyday at 2:00
     public void cleanupOldNotifications() {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(30);
-        notificationRepository.deleteByCreatedAtBeforeAndIsReadTrue(cutoffDate);
+        notificationRetention.run();
     }
 }
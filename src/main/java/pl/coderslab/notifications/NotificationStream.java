@@ -0,0 +1,135 @@
+package pl.coderslab.notifications;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.coderslab.TransactionHooks;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Server-Sent Events stream of unread counts and new notifications, one or more emitters per user.
+ * Emitters are async servlet responses, so an idle subscriber holds a connection but no thread.
+ * Updates are pushed only after the writing transaction commits.
+ */
+@Component
+public class NotificationStream {
+
+    private final ConcurrentMap<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final UnreadCountCache unreadCountCache;
+    private final long timeoutMs;
+
+    public NotificationStream(UnreadCountCache unreadCountCache,
+                              MeterRegistry meterRegistry,
+                              @Value("${notifications.stream.timeout-ms:1800000}") long timeoutMs) {
+        this.unreadCountCache = unreadCountCache;
+        this.timeoutMs = timeoutMs;
+
+        Gauge.builder("notifications.stream.subscribers", this, NotificationStream::getSubscriberCount)
+                .description("Open notification SSE connections")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+        emitter.onCompletion(() -> unsubscribe(userId, emitter));
+        emitter.onTimeout(() -> unsubscribe(userId, emitter));
+        emitter.onError(e -> unsubscribe(userId, emitter));
+
+        long unread = unreadCountCache.get(userId);
+        send(userId, emitter, SseEmitter.event().name("unread-count").data(unread));
+        return emitter;
+    }
+
+    public void notificationsCreated(Collection<Notification> notifications) {
+        TransactionHooks.afterCommit(() -> {
+            // One counter update per user; only subscribers need the count now, everybody else reads it on demand
+            Map<Long, List<Notification>> byUser = notifications.stream()
+                    .collect(Collectors.groupingBy(notification -> notification.getUser().getId()));
+            byUser.forEach((userId, created) -> {
+                unreadCountCache.add(userId, created.size());
+                if (subscribers.containsKey(userId)) {
+                    long unread = unreadCountCache.get(userId);
+                    for (Notification notification : created) {
+                        Long eventId = notification.getEvent() != null ? notification.getEvent().getId() : null;
+                        NotificationPush push = new NotificationPush(notification.getId(), eventId, notification.renderMessage(), unread);
+                        publish(userId, () -> SseEmitter.event().name("notification").data(push));
+                    }
+                }
+            });
+        });
+    }
+
+    public void unreadCountChanged(Long userId, long delta) {
+        TransactionHooks.afterCommit(() -> {
+            unreadCountCache.add(userId, delta);
+            if (subscribers.containsKey(userId)) {
+                long unread = unreadCountCache.get(userId);
+                publish(userId, () -> SseEmitter.event().name("unread-count").data(unread));
+            }
+        });
+    }
+
+    // For bulk changes where the delta is unknown - the counter is reloaded on next read
+    public void unreadCountReset(Long userId) {
+        TransactionHooks.afterCommit(() -> {
+            unreadCountCache.evict(userId);
+            if (subscribers.containsKey(userId)) {
+                long unread = unreadCountCache.get(userId);
+                publish(userId, () -> SseEmitter.event().name("unread-count").data(unread));
+            }
+        });
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    // Keeps proxies from closing idle connections and drops emitters of clients that went away
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:30000}")
+    public void heartbeat() {
+        subscribers.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                send(userId, emitter, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    // An event builder can be sent only once, so every emitter gets a fresh one
+    private void publish(Long userId, Supplier<SseEmitter.SseEventBuilder> event) {
+        Set<SseEmitter> emitters = subscribers.get(userId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(userId, emitter, event.get());
+        }
+    }
+
+    private void send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(userId, emitter);
+        }
+    }
+
+    private void unsubscribe(Long userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package pl.coderslab.notifications;
+
+import java.util.List;
+
+/**
+ * Message patterns for notifications sent to many users at once. Only the template key and its
+ * parameters are stored (see {@link NotificationPayload}), the text is rendered when it is read.
+ */
+public enum NotificationTemplate {
+    REGISTRATION_CONFIRMED("Zostałeś pomyślnie zarejestrowany na event: %s"),
+    ADDED_TO_WAITLIST("Event '%s' jest pełny - zostałeś dodany do listy oczekujących"),
+    PROMOTED_FROM_WAITLIST("Zwolniło się miejsce! Zostałeś przeniesiony z listy oczekujących na event: %s"),
+    EVENT_UPDATED("Event '%s' został zaktualizowany: %s"),
+    EVENT_CANCELLED("Event '%s' został odwołany"),
+    EVENT_REMINDER("Przypomnienie: Event '%s' rozpocznie się %s");
+
+    private final String pattern;
+
+    NotificationTemplate(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public String render(List<String> params) {
+        return String.format(pattern, params.toArray());
+    }
+}
@@ -0,0 +1,91 @@
+package pl.coderslab.notifications;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user unread notification counters, loaded lazily with one COUNT and then kept up to date
+ * from committed changes, so reading the count does not hit the notifications table.
+ * Only counters somebody has read are held: they expire after the TTL, and the bound - sized for every
+ * connected stream - is kept by Caffeine in constant time per insert.
+ */
+@Component
+public class UnreadCountCache {
+
+    private static final int STRIPES = 64;
+
+    private final Cache<Long, AtomicLong> counts;
+    // Changes per user stripe - a load that overlapped one of them is not kept
+    private final AtomicLong[] changes = new AtomicLong[STRIPES];
+    private final NotificationRepository notificationRepository;
+
+    public UnreadCountCache(NotificationRepository notificationRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${notifications.unread-cache.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${notifications.unread-cache.max-entries:50000}") int maxEntries) {
+        this.notificationRepository = notificationRepository;
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(Math.max(1, maxEntries))
+                .build();
+        for (int i = 0; i < STRIPES; i++) {
+            changes[i] = new AtomicLong();
+        }
+
+        Gauge.builder("notifications.unread.cache.size", counts, Cache::estimatedSize)
+                .description("Unread counters held in memory")
+                .register(meterRegistry);
+    }
+
+    public long get(Long userId) {
+        AtomicLong cached = counts.getIfPresent(userId);
+        if (cached != null) {
+            return cached.get();
+        }
+
+        AtomicLong stripe = stripe(userId);
+        long changesBefore = stripe.get();
+        long unread = notificationRepository.countByUserIdAndIsReadFalse(userId);
+        AtomicLong loaded = new AtomicLong(unread);
+        // A change committed while we were counting may be missing from the count - serve it once, don't keep it
+        counts.put(userId, loaded);
+        if (stripe.get() != changesBefore) {
+            counts.asMap().remove(userId, loaded);
+        }
+        return unread;
+    }
+
+    // Called after commit. A counter that is not loaded is left alone - the next get() counts the committed rows
+    public void add(Long userId, long delta) {
+        stripe(userId).incrementAndGet();
+        AtomicLong count = counts.getIfPresent(userId);
+        if (count != null) {
+            count.updateAndGet(current -> Math.max(0, current + delta));
+        }
+    }
+
+    public void evict(Long userId) {
+        stripe(userId).incrementAndGet();
+        counts.invalidate(userId);
+    }
+
+    public boolean isLoaded(Long userId) {
+        return counts.asMap().containsKey(userId);
+    }
+
+    public int size() {
+        counts.cleanUp();
+        return (int) counts.estimatedSize();
+    }
+
+    private AtomicLong stripe(Long userId) {
+        return changes[(int) Math.floorMod(userId, (long) STRIPES)];
+    }
+}
@@ -3,6 +3,7 @@ package pl.coderslab.registrations;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import pl.coderslab.events.EventService;
+import pl.coderslab.registrations.dto.BulkRegistrationResult;
 import pl.coderslab.registrations.dto.RegistrationDTO;
 import pl.coderslab.registrations.dto.RegistrationUserDto;
 
@@ -43,13 +44,28 @@ public class RegistrationController {
             @RequestParam Long userId,
             @RequestParam Long eventId) {
         try {
-            registrationService.registerUserForEvent(userId, eventId);
+            RegistrationStatus status = registrationService.registerUserForEvent(userId, eventId);
+            if (status == RegistrationStatus.WAITLISTED) {
+                return ResponseEntity.accepted().body("Event is full, added to waitlist");
+            }
             return ResponseEntity.ok("Registration successful");
         } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    @PostMapping("/register-bulk")
+    public ResponseEntity<?> registerTeamForEvent(
+            @RequestParam Long eventId,
+            @RequestBody List<Long> userIds) {
+        try {
+            BulkRegistrationResult result = registrationService.registerUsersForEvent(eventId, userIds);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{id}/cancel")
     public ResponseEntity<Void> cancelRegistration(
             @PathVariable Long id,
@@ -7,8 +7,10 @@ import org.springframework.stereotype.Repository;
 import pl.coderslab.events.Event;
 import pl.coderslab.users.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface RegistrationRepository extends JpaRepository<Registration, Long> {
@@ -19,20 +21,32 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
 
     boolean existsByUserIdAndEventIdAndStatus(Long userId, Long eventId, RegistrationStatus status);
 
-    List<Registration> findByUserIdAndStatus(Long userId, RegistrationStatus status);
+    // Explicit queries compare the foreign keys - the derived ones outer-join users/events and cannot use the indexes
+    @Query("SELECT r FROM Registration r WHERE r.user.id = :userId AND r.status = :status")
+    List<Registration> findByUserIdAndStatus(@Param("userId") Long userId, @Param("status") RegistrationStatus status);
 
-    List<Registration> findByEventIdAndStatus(Long eventId, RegistrationStatus status);
+    @Query("SELECT r FROM Registration r WHERE r.event.id = :eventId AND r.status = :status")
+    List<Registration> findByEventIdAndStatus(@Param("eventId") Long eventId, @Param("status") RegistrationStatus status);
 
     long countByEventAndStatus(Event event, RegistrationStatus status);
 
     long countByEventId(Long eventId);
 
-    Optional<Registration> findByUserIdAndEventId(Long userId, Long eventId);
+    long countByEventIdAndStatus(Long eventId, RegistrationStatus status);
+
+    @Query("SELECT r FROM Registration r WHERE r.user.id = :userId AND r.event.id = :eventId")
+    Optional<Registration> findByUserIdAndEventId(@Param("userId") Long userId, @Param("eventId") Long eventId);
 
     List<Registration> findByEventId(Long eventId);
 
     List<Registration> findByUserId(Long userId);
 
+    @Query("SELECT r.id FROM Registration r WHERE r.event.id = :eventId AND r.status = :status ORDER BY r.id")
+    List<Long> findIdsByEventIdAndStatus(@Param("eventId") Long eventId, @Param("status") RegistrationStatus status);
+
+    @Query("SELECT r.user.id FROM Registration r WHERE r.event.id = :eventId AND r.user.id IN :userIds")
+    Set<Long> findRegisteredUserIds(@Param("eventId") Long eventId, @Param("userIds") Collection<Long> userIds);
+
     @Query("SELECT r FROM Registration r JOIN FETCH r.user WHERE r.event.id = :eventId")
     List<Registration> findByEventIdWithUser(@Param("eventId") Long eventId);
 
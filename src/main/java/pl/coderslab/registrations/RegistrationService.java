@@ -2,15 +2,22 @@ package pl.coderslab.registrations;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import pl.coderslab.events.Event;
 import pl.coderslab.events.EventRepository;
 import pl.coderslab.notifications.NotificationService;
+import pl.coderslab.notifications.NotificationTemplate;
+import pl.coderslab.registrations.dto.BulkRegistrationResult;
 import pl.coderslab.users.User;
 import pl.coderslab.users.UserRepository;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class RegistrationService {
@@ -18,21 +25,24 @@ public class RegistrationService {
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final SeatReservationEngine seatReservationEngine;
+    private final WaitlistQueue waitlistQueue;
 
-    public RegistrationService(RegistrationRepository registrationRepository, EventRepository eventRepository, UserRepository userRepository, NotificationService notificationService) {
+    public RegistrationService(RegistrationRepository registrationRepository, EventRepository eventRepository, UserRepository userRepository, NotificationService notificationService, SeatReservationEngine seatReservationEngine, WaitlistQueue waitlistQueue) {
         this.registrationRepository = registrationRepository;
         this.eventRepository = eventRepository;
         this.userRepository = userRepository;
         this.notificationService = notificationService;
+        this.seatReservationEngine = seatReservationEngine;
+        this.waitlistQueue = waitlistQueue;
     }
 
     public List<Registration> getAllRegistrations() {
         return registrationRepository.findAll();
     }
 
-
-    public void registerUserForEvent(Long userId, Long eventId) {
-
+    @Transactional
+    public RegistrationStatus registerUserForEvent(Long userId, Long eventId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new EntityNotFoundException("User not found"));
 
         Event event = eventRepository.findById(eventId).orElseThrow(() -> new EntityNotFoundException("Event not found"));
@@ -41,14 +51,21 @@ public class RegistrationService {
             throw new IllegalStateException("User already registered for this event");
         }
 
-        long currentRegistrations = registrationRepository.countByEventAndStatus(event, RegistrationStatus.CONFIRMED);
-        if (currentRegistrations >= event.getCapacity()) {
-            throw new IllegalStateException("Event is full");
-        }
+        // Sold-out events are recognised from memory, without counting registrations
+        boolean seatReserved = !seatReservationEngine.isSoldOut(eventId) && seatReservationEngine.tryReserve(event);
 
         Registration registration = new Registration();
         registration.setUser(user);
         registration.setEvent(event);
+
+        if (!seatReserved) {
+            registration.setStatus(RegistrationStatus.WAITLISTED);
+            saveNew(registration);
+            waitlistQueue.enqueueAfterCommit(eventId, registration.getId());
+            notificationService.notifyAddedToWaitlist(userId, event);
+            return RegistrationStatus.WAITLISTED;
+        }
+
         registration.setStatus(RegistrationStatus.CONFIRMED);
 
         String participantMessage = String.format("Zostałeś pomyślnie zarejestrowany na event: %s", event.getTitle());
@@ -59,7 +76,70 @@ public class RegistrationService {
             String organizerMessage = String.format("Nowy uczestnik %s %s zapisał się na Twój event: %s", user.getFirstName(), user.getLastName(), event.getTitle());
             notificationService.createNotification(organizerId, organizerMessage, eventId);
         }
-        registrationRepository.save(registration);
+        saveNew(registration);
+        eventRepository.adjustConfirmedCount(eventId, 1);
+        return RegistrationStatus.CONFIRMED;
+    }
+
+    // uk_registrations_user_event stops a concurrent second registration that passed the check above
+    private void saveNew(Registration registration) {
+        try {
+            registrationRepository.saveAndFlush(registration);
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("User already registered for this event");
+        }
+    }
+
+    // Registers a whole team: set-based validation, one seat reservation and batched inserts
+    @Transactional
+    public BulkRegistrationResult registerUsersForEvent(Long eventId, List<Long> userIds) {
+        Event event = eventRepository.findById(eventId).orElseThrow(() -> new EntityNotFoundException("Event not found"));
+
+        Set<Long> requested = new LinkedHashSet<>(userIds);
+        requested.remove(null);
+        if (requested.isEmpty()) {
+            throw new IllegalArgumentException("At least one user id is required");
+        }
+
+        Set<Long> existingUsers = userRepository.findExistingIds(requested);
+        Set<Long> registeredUsers = registrationRepository.findRegisteredUserIds(eventId, requested);
+
+        List<Long> unknownUsers = new ArrayList<>();
+        List<Long> alreadyRegistered = new ArrayList<>();
+        List<Long> toRegister = new ArrayList<>();
+        for (Long userId : requested) {
+            if (!existingUsers.contains(userId)) {
+                unknownUsers.add(userId);
+            } else if (registeredUsers.contains(userId)) {
+                alreadyRegistered.add(userId);
+            } else {
+                toRegister.add(userId);
+            }
+        }
+
+        int granted = toRegister.isEmpty() ? 0 : seatReservationEngine.tryReserve(event, toRegister.size());
+        List<Long> confirmed = new ArrayList<>(toRegister.subList(0, granted));
+        List<Long> waitlisted = new ArrayList<>(toRegister.subList(granted, toRegister.size()));
+
+        if (!confirmed.isEmpty()) {
+            registrationRepository.saveAll(newRegistrations(event, confirmed, RegistrationStatus.CONFIRMED));
+            eventRepository.adjustConfirmedCount(eventId, confirmed.size());
+
+            notificationService.createNotifications(confirmed, NotificationTemplate.REGISTRATION_CONFIRMED, eventId, event.getTitle());
+
+            String organizerMessage = String.format("Na Twój event %s zapisało się %d nowych uczestników", event.getTitle(), confirmed.size());
+            notificationService.createNotification(event.getUser().getId(), organizerMessage, eventId);
+        }
+
+        if (!waitlisted.isEmpty()) {
+            for (Registration registration : registrationRepository.saveAll(newRegistrations(event, waitlisted, RegistrationStatus.WAITLISTED))) {
+                waitlistQueue.enqueueAfterCommit(eventId, registration.getId());
+            }
+
+            notificationService.createNotifications(waitlisted, NotificationTemplate.ADDED_TO_WAITLIST, eventId, event.getTitle());
+        }
+
+        return new BulkRegistrationResult(eventId, confirmed, waitlisted, alreadyRegistered, unknownUsers);
     }
 
     @Transactional
@@ -70,13 +150,27 @@ public class RegistrationService {
             throw new SecurityException("Cannot cancel other user's registration");
         }
 
+        releaseSeatIfConfirmed(registration);
         registration.setStatus(RegistrationStatus.CANCELLED);
         notificationService.notifyRegistrationCancelled(userId, registration.getEvent().getId());
         registrationRepository.save(registration);
     }
 
+    @Transactional
+    public void cancelRegistrationByOrganizer(Long registrationId) {
+        Registration registration = registrationRepository.findById(registrationId).orElseThrow(() -> new EntityNotFoundException("Registration not found"));
+
+        releaseSeatIfConfirmed(registration);
+        registration.setStatus(RegistrationStatus.CANCELLED);
+        registrationRepository.save(registration);
+    }
+
+    @Transactional
     public void deleteRegistration(Long registrationId) {
-        registrationRepository.deleteById(registrationId);
+        Registration registration = registrationRepository.findById(registrationId).orElseThrow(() -> new EntityNotFoundException("Registration not found"));
+
+        releaseSeatIfConfirmed(registration);
+        registrationRepository.delete(registration);
     }
 
     public List<Registration> getUserRegistrations(Long userId) {
@@ -94,14 +188,15 @@ public class RegistrationService {
     public int getAvailableSpots(Long eventId) {
         Event event = eventRepository.findById(eventId).orElseThrow(() -> new EntityNotFoundException("Event not found"));
 
-        long confirmedRegistrations = registrationRepository.countByEventAndStatus(event, RegistrationStatus.CONFIRMED);
-        return Math.max(0, event.getCapacity() - (int) confirmedRegistrations);
+        return seatReservationEngine.remainingSeats(event);
     }
 
+    @Transactional
     public void unregisterUserFromEvent(Long userId, Long eventId) {
         Optional<Registration> registration = registrationRepository.findByEventIdAndUserId(eventId, userId);
 
         if (registration.isPresent()) {
+            releaseSeatIfConfirmed(registration.get());
             registrationRepository.delete(registration.get());
         } else {
             throw new RuntimeException("Registration not found");
@@ -111,4 +206,78 @@ public class RegistrationService {
     public long getTotalRegistrationsCount() {
         return registrationRepository.count();
     }
+
+    // Repairs Event.confirmedCount in bulk in case it drifted from the registrations table
+    @Scheduled(cron = "0 30 3 * * ?") // Everyday at 3:30
+    @Transactional
+    public void recomputeConfirmedCounts() {
+        int updated = eventRepository.recomputeConfirmedCounts();
+        System.out.println("Recomputed confirmed count for " + updated + " events");
+    }
+
+    // Fills free seats from the head of the waitlist, e.g. after the event capacity was raised
+    @Transactional
+    public int promoteFromWaitlist(Long eventId) {
+        Event event = eventRepository.findById(eventId).orElseThrow(() -> new EntityNotFoundException("Event not found"));
+
+        List<Registration> promoted = new ArrayList<>();
+        Optional<Registration> next;
+        while ((next = waitlistQueue.pollHead(eventId)).isPresent()) {
+            if (!seatReservationEngine.tryReserve(event)) {
+                waitlistQueue.pushBack(eventId, next.get().getId());
+                break;
+            }
+            waitlistQueue.requeueOnRollback(eventId, next.get().getId());
+            promoted.add(next.get());
+        }
+
+        if (!promoted.isEmpty()) {
+            eventRepository.adjustConfirmedCount(eventId, promoted.size());
+            confirmWaitlisted(event, promoted);
+        }
+        return promoted.size();
+    }
+
+    public int getWaitlistSize(Long eventId) {
+        return waitlistQueue.size(eventId);
+    }
+
+    private void releaseSeatIfConfirmed(Registration registration) {
+        if (registration.getStatus() != RegistrationStatus.CONFIRMED) {
+            return;
+        }
+
+        Event event = registration.getEvent();
+        Optional<Registration> next = waitlistQueue.pollHead(event.getId());
+        if (next.isPresent()) {
+            // The seat goes straight to the head of the waitlist, so the counters stay unchanged
+            waitlistQueue.requeueOnRollback(event.getId(), next.get().getId());
+            confirmWaitlisted(event, List.of(next.get()));
+        } else {
+            eventRepository.adjustConfirmedCount(event.getId(), -1);
+            seatReservationEngine.releaseAfterCommit(event.getId());
+        }
+    }
+
+    private List<Registration> newRegistrations(Event event, List<Long> userIds, RegistrationStatus status) {
+        List<Registration> registrations = new ArrayList<>();
+        for (Long userId : userIds) {
+            Registration registration = new Registration();
+            registration.setUser(userRepository.getReferenceById(userId));
+            registration.setEvent(event);
+            registration.setStatus(status);
+            registrations.add(registration);
+        }
+        return registrations;
+    }
+
+    private void confirmWaitlisted(Event event, List<Registration> registrations) {
+        List<Long> userIds = new ArrayList<>();
+        for (Registration registration : registrations) {
+            registration.setStatus(RegistrationStatus.CONFIRMED);
+            userIds.add(registration.getUser().getId());
+        }
+        registrationRepository.saveAll(registrations);
+        notificationService.notifyPromotedFromWaitlist(event, userIds);
+    }
 }
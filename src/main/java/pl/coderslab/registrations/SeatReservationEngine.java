@@ -0,0 +1,101 @@
+package pl.coderslab.registrations;
+
+import org.springframework.stereotype.Component;
+import pl.coderslab.TransactionHooks;
+import pl.coderslab.events.Event;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps an in-memory "remaining seats" counter per event so that capacity is enforced
+ * with a CAS instead of a COUNT(*) per registration attempt.
+ * Counters are loaded lazily from the registrations table and are local to this node.
+ */
+@Component
+public class SeatReservationEngine {
+
+    private final ConcurrentMap<Long, AtomicInteger> remainingSeats = new ConcurrentHashMap<>();
+    private final RegistrationRepository registrationRepository;
+
+    public SeatReservationEngine(RegistrationRepository registrationRepository) {
+        this.registrationRepository = registrationRepository;
+    }
+
+    // Fast path - answers only from memory, false when the counter is not loaded yet
+    public boolean isSoldOut(Long eventId) {
+        AtomicInteger remaining = remainingSeats.get(eventId);
+        return remaining != null && remaining.get() <= 0;
+    }
+
+    public boolean tryReserve(Event event) {
+        return tryReserve(event, 1) == 1;
+    }
+
+    // Takes up to the requested number of seats in one CAS and returns how many were granted
+    public int tryReserve(Event event, int requested) {
+        AtomicInteger remaining = counterFor(event);
+
+        int current;
+        int granted;
+        do {
+            current = remaining.get();
+            granted = Math.min(Math.max(current, 0), requested);
+            if (granted == 0) {
+                return 0;
+            }
+        } while (!remaining.compareAndSet(current, current - granted));
+
+        // Give the seats back if the surrounding transaction does not commit
+        Long eventId = event.getId();
+        int reserved = granted;
+        TransactionHooks.onRollback(() -> release(eventId, reserved));
+        return granted;
+    }
+
+    public void release(Long eventId) {
+        release(eventId, 1);
+    }
+
+    public void release(Long eventId, int seats) {
+        AtomicInteger remaining = remainingSeats.get(eventId);
+        if (remaining != null) {
+            remaining.addAndGet(seats);
+        }
+    }
+
+    // Frees the seat once the cancelling transaction has committed
+    public void releaseAfterCommit(Long eventId) {
+        TransactionHooks.afterCommit(() -> release(eventId));
+    }
+
+    // Applied at once so that promotions in the same transaction can use new seats, taken back on rollback
+    public void capacityChanged(Long eventId, int oldCapacity, int newCapacity) {
+        AtomicInteger remaining = remainingSeats.get(eventId);
+        if (remaining != null) {
+            remaining.addAndGet(newCapacity - oldCapacity);
+            TransactionHooks.onRollback(() -> remaining.addAndGet(oldCapacity - newCapacity));
+        }
+    }
+
+    public int remainingSeats(Event event) {
+        return Math.max(0, counterFor(event).get());
+    }
+
+    // Drops the counter of a deleted event once the delete has committed - a rollback keeps it as it was
+    public void evictAfterCommit(Long eventId) {
+        TransactionHooks.afterCommit(() -> remainingSeats.remove(eventId));
+    }
+
+    boolean isLoaded(Long eventId) {
+        return remainingSeats.containsKey(eventId);
+    }
+
+    private AtomicInteger counterFor(Event event) {
+        return remainingSeats.computeIfAbsent(event.getId(), id -> {
+            long confirmed = registrationRepository.countByEventIdAndStatus(id, RegistrationStatus.CONFIRMED);
+            return new AtomicInteger(event.getCapacity() - (int) confirmed);
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package pl.coderslab.registrations;
+
+import org.springframework.stereotype.Component;
+import pl.coderslab.TransactionHooks;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-event FIFO of waitlisted registration ids, loaded lazily from the registrations table.
+ * Polling is lock-free, so each waitlisted registration is handed to exactly one promoting transaction.
+ * Entries that are no longer WAITLISTED (unregistered, promoted elsewhere) are skipped on poll.
+ */
+@Component
+public class WaitlistQueue {
+
+    private final ConcurrentMap<Long, ConcurrentLinkedDeque<Long>> queues = new ConcurrentHashMap<>();
+    private final RegistrationRepository registrationRepository;
+
+    public WaitlistQueue(RegistrationRepository registrationRepository) {
+        this.registrationRepository = registrationRepository;
+    }
+
+    // Entries are appended only after commit so that nobody can promote an uncommitted row
+    public void enqueueAfterCommit(Long eventId, Long registrationId) {
+        TransactionHooks.afterCommit(() -> enqueue(eventId, registrationId));
+    }
+
+    public Optional<Registration> pollHead(Long eventId) {
+        ConcurrentLinkedDeque<Long> queue = queueFor(eventId);
+
+        Long registrationId;
+        while ((registrationId = queue.pollFirst()) != null) {
+            Optional<Registration> registration = registrationRepository.findById(registrationId);
+            if (registration.isPresent() && registration.get().getStatus() == RegistrationStatus.WAITLISTED) {
+                return registration;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void pushBack(Long eventId, Long registrationId) {
+        queueFor(eventId).offerFirst(registrationId);
+    }
+
+    // Puts a polled entry back at the head if the promoting transaction does not commit
+    public void requeueOnRollback(Long eventId, Long registrationId) {
+        TransactionHooks.onRollback(() -> pushBack(eventId, registrationId));
+    }
+
+    public int size(Long eventId) {
+        return queueFor(eventId).size();
+    }
+
+    // Drops the queue of a deleted event once the delete has committed - a rollback keeps it as it was
+    public void evictAfterCommit(Long eventId) {
+        TransactionHooks.afterCommit(() -> queues.remove(eventId));
+    }
+
+    boolean isLoaded(Long eventId) {
+        return queues.containsKey(eventId);
+    }
+
+    private void enqueue(Long eventId, Long registrationId) {
+        // Not loaded yet - the lazy load will read the committed row. A load that ran between the commit
+        // and this call has read it already, and a second copy could be promoted twice
+        ConcurrentLinkedDeque<Long> queue = queues.get(eventId);
+        if (queue != null && !queue.contains(registrationId)) {
+            queue.offerLast(registrationId);
+        }
+    }
+
+    private ConcurrentLinkedDeque<Long> queueFor(Long eventId) {
+        return queues.computeIfAbsent(eventId, id -> new ConcurrentLinkedDeque<>(
+                registrationRepository.findIdsByEventIdAndStatus(id, RegistrationStatus.WAITLISTED)));
+    }
+}
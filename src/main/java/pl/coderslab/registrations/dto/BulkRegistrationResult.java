@@ -0,0 +1,12 @@
+package pl.coderslab.registrations.dto;
+
+import java.util.List;
+
+public record BulkRegistrationResult(
+        Long eventId,
+        List<Long> confirmed,
+        List<Long> waitlisted,
+        List<Long> alreadyRegistered,
+        List<Long> unknownUsers
+) {
+}
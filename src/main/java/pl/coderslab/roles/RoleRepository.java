@@ -1,10 +1,21 @@
 package pl.coderslab.roles;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import pl.coderslab.cache.ReferenceDataCache;
+
+import java.util.List;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role,Long> {
 
+    @Override
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ReferenceDataCache.ROLES_QUERY_REGION)})
+    List<Role> findAll();
+
     public Role findByName(String name);
 }
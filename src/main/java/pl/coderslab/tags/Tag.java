@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import pl.coderslab.events.Event;
 
 import java.util.HashSet;
@@ -11,6 +13,8 @@ import java.util.Set;
 
 @Entity
 @Table(name="tags")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tags")
 @Setter
 @Getter
 public class Tag {
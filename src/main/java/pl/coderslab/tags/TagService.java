@@ -1,6 +1,7 @@
 package pl.coderslab.tags;
 
 import org.springframework.stereotype.Service;
+import pl.coderslab.cache.ReferenceDataCache;
 
 import java.util.HashSet;
 import java.util.List;
@@ -11,8 +12,11 @@ import java.util.Set;
 public class TagService {
 
     private final TagRepository tagRepository;
-    public TagService(TagRepository tagRepository) {
+    private final ReferenceDataCache referenceDataCache;
+
+    public TagService(TagRepository tagRepository, ReferenceDataCache referenceDataCache) {
         this.tagRepository = tagRepository;
+        this.referenceDataCache = referenceDataCache;
     }
 
     public List<Tag> getAllTags() {
@@ -37,6 +41,8 @@ public class TagService {
     }
 
     public Tag createTag(Tag tag) {
-        return tagRepository.save(tag);
+        Tag saved = tagRepository.save(tag);
+        referenceDataCache.evictTagsAfterCommit();
+        return saved;
     }
 }
@@ -0,0 +1,36 @@
+package pl.coderslab.users;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import pl.coderslab.users.dto.AuthenticatedUser;
+
+/**
+ * The signed-in user of the current request, served from {@link PrincipalCache}.
+ * For pages that only show the user or need its id - changes go through UserService on the entity.
+ */
+@Component
+public class CurrentUserResolver {
+
+    private final PrincipalCache principalCache;
+
+    public CurrentUserResolver(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    // null for anonymous requests and for users deleted since they signed in
+    public AuthenticatedUser resolve(Authentication auth) {
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return principalCache.get(auth.getName());
+    }
+
+    public AuthenticatedUser require(Authentication auth) {
+        AuthenticatedUser user = resolve(auth);
+        if (user == null) {
+            throw new IllegalStateException("No signed-in user");
+        }
+        return user;
+    }
+}
@@ -13,24 +13,30 @@ import java.util.stream.Collectors;
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    private final PrincipalCache principalCache;
     private final UserRepository userRepository;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(PrincipalCache principalCache, UserRepository userRepository) {
+        this.principalCache = principalCache;
         this.userRepository = userRepository;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email);
-
-        // Konwertuj Set<Role> na authorities
-        Set<SimpleGrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName().toUpperCase()))
+        PrincipalCache.Entry entry = principalCache.getEntry(email);
+        if (entry == null) {
+            throw new UsernameNotFoundException("User not found: " + email);
+        }
+
+        // Konwertuj nazwy ról na authorities
+        Set<SimpleGrantedAuthority> authorities = entry.user().roleNames().stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
                 .collect(Collectors.toSet());
 
+        // Nowy obiekt przy każdym logowaniu - Spring Security czyści w nim hasło po uwierzytelnieniu
         return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
+                .username(entry.user().email())
+                .password(entry.passwordHash())
                 .authorities(authorities) // Używamy Set<SimpleGrantedAuthority>
                 .accountExpired(false)
                 .accountLocked(false)
@@ -38,4 +44,12 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .disabled(false)
                 .build();
     }
+
+    // Zapisuje nowy hash po udanym logowaniu, gdy stary ma niższy koszt - tylko jeśli w bazie wciąż jest ten stary,
+    // więc zmiana hasła w międzyczasie nie zostanie nadpisana
+    public boolean upgradePassword(String email, String currentHash, String newHash) {
+        boolean updated = userRepository.updatePassword(email, currentHash, newHash) == 1;
+        principalCache.evictAfterCommit(email);
+        return updated;
+    }
 }
@@ -0,0 +1,149 @@
+package pl.coderslab.users;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import pl.coderslab.BloomFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Password rules checked in one pass over the characters: length, character classes and the blocklist hash
+ * are all collected in the same loop, without copying or lower-casing the password.
+ * The blocklist (any number of one-password-per-line files, "optional:" ones may be missing) is loaded once
+ * into a Bloom filter - a false positive only asks the user for another password, it never lets a listed one through.
+ */
+@Component
+public class PasswordPolicy {
+
+    private static final String OPTIONAL_PREFIX = "optional:";
+
+    private final int minLength;
+    private final BloomFilter blocklist;
+    private final int blocklistSize;
+
+    @Autowired
+    public PasswordPolicy(ResourceLoader resourceLoader,
+                          @Value("${security.password.min-length:8}") int minLength,
+                          @Value("${security.password.blocklist-locations:classpath:security/common-passwords.txt}") String[] blocklistLocations,
+                          @Value("${security.password.blocklist-false-positive-rate:0.001}") double falsePositiveRate) {
+        this(minLength, load(resourceLoader, blocklistLocations), falsePositiveRate);
+    }
+
+    PasswordPolicy(int minLength, Collection<String> blockedPasswords, double falsePositiveRate) {
+        this.minLength = minLength;
+        this.blocklist = BloomFilter.create(blockedPasswords.size(), falsePositiveRate);
+        for (String blocked : blockedPasswords) {
+            blocklist.add(blocked);
+        }
+        this.blocklistSize = blockedPasswords.size();
+        System.out.println("Password blocklist: " + blocklistSize + " entries in " + blocklist.sizeInBytes()
+                + " bytes (" + blocklist.getHashCount() + " hashes)");
+    }
+
+    // Empty when the password is acceptable; surrounding whitespace is ignored like everywhere else
+    public List<String> check(String password) {
+        int from = 0;
+        int to = password != null ? password.length() : 0;
+        while (from < to && password.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && password.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (from == to) {
+            return List.of("Password is required");
+        }
+
+        boolean lowercase = false;
+        boolean uppercase = false;
+        boolean digit = false;
+        long hash = BloomFilter.FNV_OFFSET;
+        for (int i = from; i < to; i++) {
+            char c = password.charAt(i);
+            hash = BloomFilter.update(hash, c);
+            if (Character.isLowerCase(c)) {
+                lowercase = true;
+            } else if (Character.isUpperCase(c)) {
+                uppercase = true;
+            } else if (Character.isDigit(c)) {
+                digit = true;
+            }
+        }
+        boolean tooShort = to - from < minLength;
+        boolean common = blocklist.mightContain(hash);
+        if (!tooShort && lowercase && uppercase && digit && !common) {
+            return List.of();
+        }
+
+        List<String> errors = new ArrayList<>();
+        if (tooShort) {
+            errors.add("Password must be at least " + minLength + " characters long");
+        }
+        if (!lowercase) {
+            errors.add("Password must contain at least one lowercase letter");
+        }
+        if (!uppercase) {
+            errors.add("Password must contain at least one uppercase letter");
+        }
+        if (!digit) {
+            errors.add("Password must contain at least one digit");
+        }
+        if (common) {
+            errors.add("Password is too common, please choose a stronger password");
+        }
+        return errors;
+    }
+
+    public void validate(String password) {
+        List<String> errors = check(password);
+        if (errors.isEmpty()) {
+            return;
+        }
+        if (password == null || password.isBlank()) {
+            throw new IllegalArgumentException("Password is required");
+        }
+        throw new IllegalArgumentException("Password validation failed: " + String.join(", ", errors));
+    }
+
+    public int getBlocklistSize() {
+        return blocklistSize;
+    }
+
+    private static List<String> load(ResourceLoader resourceLoader, String[] locations) {
+        List<String> passwords = new ArrayList<>();
+        for (String location : locations) {
+            String trimmed = location.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            boolean optional = trimmed.startsWith(OPTIONAL_PREFIX);
+            Resource resource = resourceLoader.getResource(optional ? trimmed.substring(OPTIONAL_PREFIX.length()) : trimmed);
+            if (optional && !resource.exists()) {
+                System.out.println("Password blocklist " + trimmed + " not found, skipped");
+                continue;
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String password = line.trim();
+                    if (!password.isEmpty() && !password.startsWith("#")) {
+                        passwords.add(password);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read password blocklist " + location, e);
+            }
+        }
+        return passwords;
+    }
+}
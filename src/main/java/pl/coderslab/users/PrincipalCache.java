@@ -0,0 +1,113 @@
+package pl.coderslab.users;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.coderslab.TransactionHooks;
+import pl.coderslab.roles.Role;
+import pl.coderslab.users.dto.AuthenticatedUser;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshots of signed-in users keyed by email, shared by authentication and {@link CurrentUserResolver}.
+ * Entries expire after the TTL and are dropped after a commit that changes the user, its roles or password.
+ * Holds copies, never entities - a snapshot outlives the session it was loaded in.
+ */
+@Component
+public class PrincipalCache {
+
+    record Entry(AuthenticatedUser user, String passwordHash) {}
+
+    private final Cache<String, Entry> entries;
+    private final AtomicLong evictions = new AtomicLong();
+    private final UserRepository userRepository;
+    private final Counter hits;
+    private final Counter misses;
+
+    public PrincipalCache(UserRepository userRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${users.principal-cache.ttl-seconds:300}") long ttlSeconds,
+                          @Value("${users.principal-cache.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.entries = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(Math.max(1, maxEntries))
+                .build();
+
+        Gauge.builder("users.principal.cache.size", entries, Cache::estimatedSize)
+                .description("Signed-in users held in the principal cache")
+                .register(meterRegistry);
+        this.hits = Counter.builder("users.principal.cache.gets")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("users.principal.cache.gets")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public AuthenticatedUser get(String email) {
+        Entry entry = getEntry(email);
+        return entry != null ? entry.user() : null;
+    }
+
+    // Unknown emails are not cached, a user registered a moment later must be able to sign in
+    Entry getEntry(String email) {
+        if (email == null) {
+            return null;
+        }
+        String key = key(email);
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+
+        long evictionsBefore = evictions.get();
+        User user = userRepository.findByEmail(email);
+        if (user == null) {
+            entries.invalidate(key);
+            return null;
+        }
+        Set<String> roleNames = user.getRoles().stream()
+                .map(Role::getName)
+                .collect(Collectors.toUnmodifiableSet());
+        Entry loaded = new Entry(new AuthenticatedUser(user.getId(), user.getEmail(), user.getFirstName(),
+                user.getLastName(), roleNames), user.getPassword());
+        // A user changed while we were loading keeps its eviction - the stale copy is served once, not cached
+        entries.put(key, loaded);
+        if (evictions.get() != evictionsBefore) {
+            entries.asMap().remove(key, loaded);
+        }
+        return loaded;
+    }
+
+    public void evictAfterCommit(String... emails) {
+        TransactionHooks.afterCommit(() -> {
+            for (String email : emails) {
+                if (email != null) {
+                    entries.invalidate(key(email));
+                }
+            }
+            evictions.incrementAndGet();
+        });
+    }
+
+    public int size() {
+        entries.cleanUp();
+        return (int) entries.estimatedSize();
+    }
+
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,11 +1,21 @@
 package pl.coderslab.users;
 
+import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.coderslab.users.dto.EditUserRequest;
+import pl.coderslab.users.dto.UserListRow;
+import pl.coderslab.users.dto.UserSummary;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -16,4 +26,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     public List<User> findByLastName(String username);
 
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    public Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Users with their role names in one statement - no entities, no eager roles, no collections
+    @Query(value = "SELECT new pl.coderslab.users.dto.UserListRow(u.id, u.firstName, u.lastName, u.email, " +
+            "listagg(r.name, ',') WITHIN GROUP (ORDER BY r.name)) " +
+            "FROM User u LEFT JOIN u.roles r " +
+            "GROUP BY u.id, u.firstName, u.lastName, u.email",
+            countQuery = "SELECT COUNT(u) FROM User u")
+    public Page<UserListRow> findUserRows(Pageable pageable);
+
+    @Query("SELECT new pl.coderslab.users.dto.UserSummary(u.id, u.firstName, u.lastName, u.email) " +
+            "FROM User u ORDER BY u.lastName, u.firstName, u.id")
+    public List<UserSummary> findAllSummaries();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email AND u.password = :currentPassword")
+    public int updatePassword(@Param("email") String email, @Param("currentPassword") String currentPassword,
+                              @Param("password") String password);
+
 }
@@ -1,6 +1,9 @@
 package pl.coderslab.users;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -11,6 +14,7 @@ import pl.coderslab.roles.RoleRepository;
 import pl.coderslab.users.dto.CreateUserRequest;
 import pl.coderslab.users.dto.EditUserRequest;
 import pl.coderslab.users.dto.UserResponse;
+import pl.coderslab.users.dto.UserSummary;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,28 +25,37 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final PasswordPolicy passwordPolicy;
 
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+                       PrincipalCache principalCache, PasswordPolicy passwordPolicy) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
+        this.passwordPolicy = passwordPolicy;
     }
 
     public List<UserResponse> getUsers() {
-        return userRepository.findAll().stream()
-                .map(user -> new UserResponse(
-                        user.getId(),
-                        user.getFirstName(),
-                        user.getLastName(),
-                        user.getEmail(),
-                        user.getRoles().stream()
-                                .map(Role::getName)
-                                .collect(Collectors.toSet())
-                ))
+        return userRepository.findUserRows(Pageable.unpaged(UserSort.LAST_NAME.getSort())).stream()
+                .map(UserResponse::fromRow)
                 .collect(Collectors.toList());
     }
 
+    // Page of ids, names, emails and role names: one statement for the rows, one for the count
+    public Page<UserResponse> getUserPage(String sortBy, Pageable pageable) {
+        PageRequest sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                UserSort.fromParam(sortBy).getSort());
+        return userRepository.findUserRows(sorted).map(UserResponse::fromRow);
+    }
+
+    // For pickers that show a name and submit an id
+    public List<UserSummary> getUserSummaries() {
+        return userRepository.findAllSummaries();
+    }
+
 //    public ResponseEntity<User> getUserById(Long id) {
 //        User user = userRepository.findById(id).orElse(null);
 //        return new ResponseEntity<>(user, HttpStatus.OK);
@@ -58,7 +71,7 @@ public class UserService {
             throw new IllegalArgumentException("Email already in use");
         }
 
-        validatePassword(createUserRequest.password());
+        passwordPolicy.validate(createUserRequest.password());
 
         Set<Role> roleEntities = new HashSet<>(roleRepository.findAllById(createUserRequest.roleIds()));
         if (roleEntities.size() != createUserRequest.roleIds().size()) {
@@ -75,49 +88,39 @@ public class UserService {
         return userRepository.save(u).getId();
     }
 
-    private void validatePassword(String password) {
-        if (password == null || password.trim().isEmpty()) {
-            throw new IllegalArgumentException("Password is required");
-        }
-
-        String trimmedPassword = password.trim();
-        List<String> errors = new ArrayList<>();
-
-        if (trimmedPassword.length() < 8) {
-            errors.add("Password must be at least 8 characters long");
-        }
-
-        if (!hasLowercase(trimmedPassword)) {
-            errors.add("Password must contain at least one lowercase letter");
-        }
-
-        if (!hasUppercase(trimmedPassword)) {
-            errors.add("Password must contain at least one uppercase letter");
-        }
-
-        if (!hasDigit(trimmedPassword)) {
-            errors.add("Password must contain at least one digit");
-        }
-
-        if (isCommonPassword(trimmedPassword)) {
-            errors.add("Password is too common, please choose a stronger password");
-        }
-
-        if (!errors.isEmpty()) {
-            throw new IllegalArgumentException("Password validation failed: " + String.join(", ", errors));
-        }
-    }
-
     public void deleteUser(long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         userRepository.delete(user);
+        principalCache.evictAfterCommit(user.getEmail());
     }
 
     public void updateUserEmail(long id, String newEmail) {
         User user = userRepository.findById(id).get();
+        String oldEmail = user.getEmail();
         user.setEmail(newEmail);
         userRepository.save(user);
+        principalCache.evictAfterCommit(oldEmail, newEmail);
+    }
+
+    public void changePassword(Long id, String newPassword) {
+        passwordPolicy.validate(newPassword);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        user.setPassword(passwordEncoder.encode(newPassword));
+        userRepository.save(user);
+        principalCache.evictAfterCommit(user.getEmail());
+    }
+
+    public void updateProfile(Long id, String firstName, String lastName, String email) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        String oldEmail = user.getEmail();
+        user.setFirstName(firstName.trim());
+        user.setLastName(lastName.trim());
+        user.setEmail(email.trim());
+        userRepository.save(user);
+        principalCache.evictAfterCommit(oldEmail, user.getEmail());
     }
 
     public User findByEmail(String email) {
@@ -125,12 +128,15 @@ public class UserService {
     }
 
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.evictAfterCommit(saved.getEmail());
+        return saved;
     }
 
     public void updateUser(EditUserRequest editRequest) {
         User user = userRepository.findById(editRequest.id())
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        String oldEmail = user.getEmail();
 
         if (!user.getEmail().equals(editRequest.email()) &&
                 userRepository.existsByEmail(editRequest.email())) {
@@ -148,6 +154,7 @@ public class UserService {
         user.setRoles(roleEntities);
 
         userRepository.save(user);
+        principalCache.evictAfterCommit(oldEmail, user.getEmail());
     }
 
     public long getTotalUsersCount() {
@@ -157,28 +164,4 @@ public class UserService {
     public List<User> getUserByLastName(String lastName) {
         return userRepository.findByLastName(lastName);
     }
-
-    private boolean hasLowercase(String password) {
-        return password.matches(".*[a-z].*");
-    }
-
-    private boolean hasUppercase(String password) {
-        return password.matches(".*[A-Z].*");
-    }
-
-    private boolean hasDigit(String password) {
-        return password.matches(".*\\d.*");
-    }
-
-    private boolean isCommonPassword(String password) {
-        Set<String> commonPasswords = Set.of(
-                "password", "123456", "password123", "admin", "qwerty",
-                "letmein", "welcome", "monkey", "dragon", "master",
-                "123456789", "qwerty123", "password1", "admin123",
-                "welcome123", "login", "guest", "test", "user"
-        );
-        return commonPasswords.contains(password.toLowerCase());
-    }
 }
-
-
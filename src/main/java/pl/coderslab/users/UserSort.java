@@ -0,0 +1,38 @@
+package pl.coderslab.users;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+
+/**
+ * Sort options of the admin user list. Every order ends with the id, so pages never overlap.
+ */
+public enum UserSort {
+    LAST_NAME("lastName", Sort.by("lastName", "firstName", "id")),
+    FIRST_NAME("firstName", Sort.by("firstName", "lastName", "id")),
+    EMAIL("email", Sort.by("email", "id"));
+
+    private final String param;
+    private final Sort sort;
+
+    UserSort(String param, Sort sort) {
+        this.param = param;
+        this.sort = sort;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    Sort getSort() {
+        return sort;
+    }
+
+    // Unknown values fall back to the last name
+    public static UserSort fromParam(String param) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.param.equals(param))
+                .findFirst()
+                .orElse(LAST_NAME);
+    }
+}
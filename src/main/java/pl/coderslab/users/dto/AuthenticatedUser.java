@@ -0,0 +1,15 @@
+package pl.coderslab.users.dto;
+
+import java.util.Set;
+
+public record AuthenticatedUser(
+        Long id,
+        String email,
+        String firstName,
+        String lastName,
+        Set<String> roleNames
+) {
+    public boolean hasRole(String roleName) {
+        return roleNames.stream().anyMatch(role -> role.equalsIgnoreCase(roleName));
+    }
+}
@@ -0,0 +1,10 @@
+package pl.coderslab.users.dto;
+
+// One row of the user list; roleNames are the user's role names joined with ',' in name order, null without roles
+public record UserListRow(
+        Long id,
+        String firstName,
+        String lastName,
+        String email,
+        String roleNames
+) {}
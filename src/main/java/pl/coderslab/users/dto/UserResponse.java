@@ -5,6 +5,8 @@ import pl.coderslab.notifications.Notification;
 import pl.coderslab.registrations.Registration;
 import pl.coderslab.users.User;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -25,4 +27,11 @@ public record UserResponse(
                 user.getRoleNames()
         );
     }
+
+    public static UserResponse fromRow(UserListRow row) {
+        Set<String> roles = row.roleNames() == null
+                ? new LinkedHashSet<>()
+                : new LinkedHashSet<>(Arrays.asList(row.roleNames().split(",")));
+        return new UserResponse(row.id(), row.firstName(), row.lastName(), row.email(), roles);
+    }
 }
\ No newline at end of file
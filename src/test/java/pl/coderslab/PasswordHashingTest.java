@@ -0,0 +1,114 @@
+package pl.coderslab;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import pl.coderslab.users.User;
+import pl.coderslab.users.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PasswordHashingTest {
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void loginRehashesPasswordsStoredWithAnotherWorkFactor() throws InterruptedException {
+        User user = new User();
+        user.setFirstName("Stary");
+        user.setLastName("Hash");
+        user.setEmail("rehash@hashing.test");
+        user.setPassword(new BCryptPasswordEncoder(4).encode("Haslo1234"));
+        userRepository.save(user);
+        assertTrue(passwordHasher.upgradeEncoding(user.getPassword()));
+        // A stronger hash is never downgraded
+        assertFalse(passwordHasher.upgradeEncoding(new BCryptPasswordEncoder(6).encode("Haslo1234")));
+
+        authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("rehash@hashing.test", "Haslo1234"));
+
+        // The re-hash finishes on a hashing worker after the login has returned
+        String rehashed = user.getPassword();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (rehashed.equals(user.getPassword())) {
+            assertTrue(System.nanoTime() < deadline, "Password was not re-hashed in 10 s");
+            Thread.sleep(20);
+            rehashed = userRepository.findByEmail("rehash@hashing.test").getPassword();
+        }
+        assertEquals(passwordHasher.getStrength(), PasswordHasher.strengthOf(rehashed));
+        assertFalse(passwordHasher.upgradeEncoding(rehashed));
+        assertTrue(passwordHasher.matches("Haslo1234", rehashed));
+        // The next login verifies against the new hash
+        authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("rehash@hashing.test", "Haslo1234"));
+        assertTrue(meterRegistry.get("security.password.hashing").tag("operation", "matches").timer().count() >= 2);
+    }
+
+    @Test
+    void fullQueueIsRefusedInsteadOfPilingUp() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(12, 1, 1, 10_000, new SimpleMeterRegistry());
+        List<CompletableFuture<String>> accepted = new ArrayList<>();
+        try {
+            assertThrows(IllegalStateException.class, () -> {
+                for (int i = 0; i < 3; i++) {
+                    accepted.add(hasher.encodeAsync("Haslo1234"));
+                }
+            });
+            assertEquals(2, accepted.size());
+            for (CompletableFuture<String> hash : accepted) {
+                assertEquals(12, PasswordHasher.strengthOf(hash.get()));
+            }
+            assertEquals(0, hasher.getQueueDepth());
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void rehashWaitsWhileTheWorkersAreBusy() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(12, 1, 10, 10_000, new SimpleMeterRegistry());
+        try {
+            CompletableFuture<String> login = hasher.encodeAsync("Haslo1234");
+            List<String> stored = new ArrayList<>();
+            assertFalse(hasher.rehashInBackground("Haslo1234", stored::add));
+            login.get();
+
+            while (hasher.getQueueDepth() > 0 || !hasher.rehashInBackground("Haslo1234", stored::add)) {
+                Thread.sleep(20);
+            }
+            hasher.shutdown();
+            assertEquals(1, stored.size());
+            assertEquals(12, PasswordHasher.strengthOf(stored.get(0)));
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void calibrationStaysWithinBounds() {
+        assertEquals(4, PasswordConfig.calibrateStrength(0, 4, 8));
+        assertEquals(8, PasswordConfig.calibrateStrength(100_000, 4, 8));
+    }
+}
@@ -0,0 +1,162 @@
+package pl.coderslab;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.coderslab.comments.CommentRepository;
+import pl.coderslab.events.Event;
+import pl.coderslab.events.EventRepository;
+import pl.coderslab.events.EventSort;
+import pl.coderslab.events.dto.EventFilter;
+import pl.coderslab.invitations.InvitationRepository;
+import pl.coderslab.invitations.InvitationStatus;
+import pl.coderslab.notifications.NotificationRepository;
+import pl.coderslab.registrations.Registration;
+import pl.coderslab.registrations.RegistrationRepository;
+import pl.coderslab.registrations.RegistrationService;
+import pl.coderslab.registrations.RegistrationStatus;
+import pl.coderslab.users.User;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SchemaMigrationsTest {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* PUBLIC\\.(\\w+)\\.tableScan");
+    private static final Set<String> HOT_TABLES = Set.of("EVENTS", "REGISTRATIONS", "NOTIFICATIONS", "INVITATIONS", "COMMENTS");
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private SchemaMigrations schemaMigrations;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Test
+    void migrationsAreAppliedOnceAndRegistrationIsUniquePerUserAndEvent() {
+        assertEquals(Set.of(1, 2, 3, 4, 5, 6, 7, 8), schemaMigrations.getAppliedVersions());
+
+        User user = fixtures.user("Unique", "Test", "unique@migrations.test");
+        Event event = fixtures.event("Migracje schematu", 10, user);
+
+        registrationService.registerUserForEvent(user.getId(), event.getId());
+        assertThrows(IllegalStateException.class, () -> registrationService.registerUserForEvent(user.getId(), event.getId()));
+
+        Registration duplicate = new Registration();
+        duplicate.setUser(user);
+        duplicate.setEvent(event);
+        duplicate.setStatus(RegistrationStatus.WAITLISTED);
+        assertThrows(DataIntegrityViolationException.class, () -> registrationRepository.saveAndFlush(duplicate));
+    }
+
+    @Test
+    void confirmedCountsAreBackfilledWhenTheColumnArrives() {
+        User user = fixtures.user("Backfill", "Test", "backfill@migrations.test");
+        Event event = fixtures.event("Backfill", 10, user);
+        registrationService.registerUserForEvent(user.getId(), event.getId());
+
+        // State of a database that just got the column: default 0, migration 6 not applied yet
+        jdbcTemplate.update("UPDATE events SET confirmed_count = 0 WHERE id = ?", event.getId());
+        jdbcTemplate.update("DELETE FROM schema_migrations WHERE version = 6");
+        schemaMigrations.migrate();
+
+        assertEquals(1, eventRepository.findById(event.getId()).orElseThrow().getRegisteredCount());
+        assertTrue(schemaMigrations.getAppliedVersions().contains(6));
+    }
+
+    @Test
+    void hotPathQueriesDoNotScanWholeTables() {
+        List<String> statements;
+        RecordingStatementInspector.start();
+        try {
+            registrationRepository.existsByUserIdAndEventId(1L, 1L);
+            registrationRepository.findByUserIdAndEventId(1L, 1L);
+            registrationRepository.countByEventIdAndStatus(1L, RegistrationStatus.CONFIRMED);
+            registrationRepository.findByEventIdAndStatus(1L, RegistrationStatus.CONFIRMED);
+            registrationRepository.findIdsByEventIdAndStatus(1L, RegistrationStatus.WAITLISTED);
+            registrationRepository.findRegisteredUserIds(1L, List.of(1L, 2L));
+            registrationRepository.findByUserIdAndStatus(1L, RegistrationStatus.CONFIRMED);
+
+            notificationRepository.countByUserIdAndIsReadFalse(1L);
+            notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(1L);
+            notificationRepository.findFirstPage(1L, PageRequest.of(0, 20));
+            notificationRepository.findRegisteredUserIdsForEvent(1L);
+
+            invitationRepository.findInvitedEmails(1L, List.of("a@migrations.test", "b@migrations.test"));
+            invitationRepository.findByEventIdAndEmailAndStatusNot(1L, "a@migrations.test", InvitationStatus.EXPIRED);
+            invitationRepository.countByStatusForEvents(List.of(1L, 2L));
+            invitationRepository.countByEventIdAndStatus(1L, InvitationStatus.PENDING);
+            invitationRepository.findIdsByStatusAndSentAtBefore(InvitationStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, 100));
+
+            commentRepository.findByEventIdOrderByCreatedAtDesc(1L, PageRequest.of(0, 20));
+            commentRepository.findRecentCommentsForEvent(1L, LocalDateTime.now().minusDays(7));
+            commentRepository.countByEventId(1L);
+
+            eventRepository.findEventIds(new EventFilter(null, 1L, null, null), EventSort.START_AT, PageRequest.of(0, 20));
+            eventRepository.findEventIds(new EventFilter(null, null, null, null), EventSort.TITLE, PageRequest.of(0, 20));
+        } finally {
+            statements = RecordingStatementInspector.stop();
+        }
+
+        List<String> scans = new ArrayList<>();
+        for (String sql : statements) {
+            // A statement without WHERE reads the whole table by definition (e.g. the count of all events)
+            if (!sql.toLowerCase(Locale.ROOT).contains(" where ")) {
+                continue;
+            }
+            Matcher scan = TABLE_SCAN.matcher(explain(sql));
+            while (scan.find()) {
+                if (HOT_TABLES.contains(scan.group(1))) {
+                    scans.add(scan.group(1) + " <- " + sql);
+                }
+            }
+        }
+        assertTrue(statements.size() >= 20, "Statements were not recorded: " + statements.size());
+        assertTrue(scans.isEmpty(), "Full table scans:\n" + String.join("\n", scans));
+    }
+
+    // H2 explains a statement with its parameters left unset
+    private String explain(String sql) {
+        return jdbcTemplate.execute("EXPLAIN " + sql, (PreparedStatement statement) -> {
+            try (ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package pl.coderslab;
+
+import org.springframework.stereotype.Component;
+import pl.coderslab.events.Event;
+import pl.coderslab.events.EventRepository;
+import pl.coderslab.users.User;
+import pl.coderslab.users.UserRepository;
+
+import java.time.LocalDateTime;
+
+// Users and events the integration tests build on; newX() only creates, the instance methods also save
+@Component
+public class TestFixtures {
+
+    public static final String PASSWORD = "secret";
+
+    private final UserRepository userRepository;
+    private final EventRepository eventRepository;
+
+    public TestFixtures(UserRepository userRepository, EventRepository eventRepository) {
+        this.userRepository = userRepository;
+        this.eventRepository = eventRepository;
+    }
+
+    public User user(String firstName, String lastName, String email) {
+        return userRepository.save(newUser(firstName, lastName, email));
+    }
+
+    public Event event(String title, int capacity, User organizer) {
+        return eventRepository.save(newEvent(title, capacity, organizer));
+    }
+
+    public static User newUser(String firstName, String lastName, String email) {
+        User user = new User();
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail(email);
+        user.setPassword(PASSWORD);
+        return user;
+    }
+
+    // A two-hour event a week from now
+    public static Event newEvent(String title, int capacity, User organizer) {
+        Event event = new Event();
+        event.setTitle(title);
+        event.setOrganizer(organizer.getFirstName() + " " + organizer.getLastName());
+        event.setStartAt(LocalDateTime.now().plusDays(7));
+        event.setEndAt(LocalDateTime.now().plusDays(7).plusHours(2));
+        event.setCapacity(capacity);
+        event.setUser(organizer);
+        return event;
+    }
+}
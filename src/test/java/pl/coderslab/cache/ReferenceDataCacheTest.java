@@ -0,0 +1,130 @@
+package pl.coderslab.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.coderslab.locations.Location;
+import pl.coderslab.locations.LocationService;
+import pl.coderslab.roles.Role;
+import pl.coderslab.roles.RoleRepository;
+import pl.coderslab.roles.RoleService;
+import pl.coderslab.tags.Tag;
+import pl.coderslab.tags.TagService;
+
+import javax.cache.CacheManager;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ReferenceDataCacheTest {
+
+    @Autowired
+    private LocationService locationService;
+
+    @Autowired
+    private TagService tagService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void listsAreServedFromTheCacheAndEvictedOnChanges() {
+        Location location = new Location();
+        location.setName("Sala Cache");
+        location.setCity("Gdańsk");
+        location.setCapacity(120);
+        Long locationId = locationService.createLocation(location).getId();
+        Tag tag = new Tag();
+        tag.setName("cache-test");
+        tagService.createTag(tag);
+        Role role = new Role();
+        role.setName("ROLE_CACHE_TEST");
+        roleRepository.save(role);
+
+        List<Location> locations = locationService.getAllLocations();
+        assertEquals(0, statements(locationService::getAllLocations));
+        assertEquals(0, statements(tagService::findAll));
+        assertEquals(0, statements(roleService::getAllRoles));
+        assertTrue(roleService.getAllRoles().stream().anyMatch(r -> r.getName().equals("ROLE_CACHE_TEST")));
+
+        Location created = new Location();
+        created.setName("Sala Nowa");
+        created.setCity("Gdynia");
+        locationService.createLocation(created);
+        List<Location> afterCreate = locationService.getAllLocations();
+        assertEquals(locations.size() + 1, afterCreate.size());
+
+        Location details = new Location();
+        details.setName("Sala Przemianowana");
+        details.setCity("Sopot");
+        details.setCapacity(150);
+        locationService.updateLocation(locationId, details);
+        assertTrue(locationService.getAllLocations().stream().anyMatch(l -> l.getName().equals("Sala Przemianowana")));
+        assertEquals("Sopot", locationService.getLocationById(locationId).getCity());
+
+        locationService.deactivateLocation(locationId);
+        assertFalse(locationService.getAllLocations().stream()
+                .filter(l -> l.getId().equals(locationId))
+                .findFirst().orElseThrow().getIsActive());
+
+        Tag second = new Tag();
+        second.setName("cache-test-2");
+        tagService.createTag(second);
+        assertTrue(tagService.findAll().stream().anyMatch(t -> t.getName().equals("cache-test-2")));
+
+        assertTrue(hits(ReferenceDataCache.LOCATIONS_QUERY_REGION) > 0);
+        assertTrue(hits("locations") > 0);
+        assertTrue(hits(ReferenceDataCache.TAGS_QUERY_REGION) > 0);
+        assertTrue(hits(ReferenceDataCache.ROLES_QUERY_REGION) > 0);
+        assertTrue(meterRegistry.get("cache.region.gets").tag("region", ReferenceDataCache.LOCATIONS_QUERY_REGION)
+                .tag("result", "miss").functionCounter().count() > 0);
+    }
+
+    @Test
+    void regionsEvictOnOverflowExceptTheTimestamps() {
+        CacheManager cacheManager = ((JCacheRegionFactory) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getCache().getRegionFactory()).getCacheManager();
+
+        for (String region : List.of("locations", "tags", "roles", ReferenceDataCache.LOCATIONS_QUERY_REGION,
+                ReferenceDataCache.TAGS_QUERY_REGION, ReferenceDataCache.ROLES_QUERY_REGION)) {
+            Cache<?, ?> storage = cacheManager.getCache(region).unwrap(Cache.class);
+            assertEquals(10_000, storage.policy().eviction().orElseThrow().getMaximum());
+            assertEquals(0, meterRegistry.get("cache.region.evictions").tag("region", region).functionCounter().count());
+        }
+        Cache<?, ?> timestamps = cacheManager.getCache("default-update-timestamps-region").unwrap(Cache.class);
+        assertTrue(timestamps.policy().eviction().isEmpty());
+    }
+
+    // The first call may still fill the cache, the second must not reach the database
+    private long statements(Supplier<?> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        call.get();
+        long before = statistics.getPrepareStatementCount();
+        call.get();
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    private double hits(String region) {
+        return meterRegistry.get("cache.region.gets").tag("region", region).tag("result", "hit").functionCounter().count();
+    }
+}
@@ -0,0 +1,107 @@
+package pl.coderslab.comments;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.events.Event;
+import pl.coderslab.users.User;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "comments.retention.batch-size=500",
+        "comments.retention.archive-dir=target/comment-retention-test",
+        "spring.datasource.url=jdbc:h2:mem:CommentRetentionTest;MODE=MySQL;DB_CLOSE_DELAY=-1"
+})
+class CommentRetentionTest {
+
+    private static final Path ARCHIVE_DIR = Path.of("target/comment-retention-test");
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void deletesOldCommentsInBatchesAndArchivesThem() throws IOException {
+        clearArchiveDir();
+
+        User author = fixtures.user("Retention", "Comments", "author@comments.test");
+
+        Event event = fixtures.event("Old comments", 10, author);
+
+        commentRepository.saveAll(newComments(event, author, 1_200));
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createQuery("UPDATE Comment c SET c.createdAt = :createdAt WHERE c.event.id = :eventId")
+                .setParameter("createdAt", LocalDateTime.now().minusMonths(7))
+                .setParameter("eventId", event.getId())
+                .executeUpdate());
+        commentRepository.saveAll(newComments(event, author, 5));
+
+        commentService.cleanupOldComments();
+
+        assertEquals(5, commentRepository.countByEventId(event.getId()));
+        // Three batches, each a gzip member of its own, read back as one stream
+        assertEquals(1_200, countArchivedLines());
+    }
+
+    private List<Comment> newComments(Event event, User author, int count) {
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Comment comment = new Comment();
+            comment.setContent("Komentarz " + i);
+            comment.setEvent(event);
+            comment.setAuthor(author);
+            comments.add(comment);
+        }
+        return comments;
+    }
+
+    private void clearArchiveDir() throws IOException {
+        if (Files.isDirectory(ARCHIVE_DIR)) {
+            try (Stream<Path> archives = Files.list(ARCHIVE_DIR)) {
+                for (Path archive : archives.toList()) {
+                    Files.delete(archive);
+                }
+            }
+        }
+    }
+
+    private long countArchivedLines() throws IOException {
+        long lines = 0;
+        try (Stream<Path> archives = Files.list(ARCHIVE_DIR)) {
+            for (Path archive : archives.toList()) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+                    lines += reader.lines().count();
+                }
+            }
+        }
+        return lines;
+    }
+}
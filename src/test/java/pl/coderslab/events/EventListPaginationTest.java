@@ -0,0 +1,171 @@
+package pl.coderslab.events;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.coderslab.RecordingStatementInspector;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.events.dto.EventFilter;
+import pl.coderslab.locations.Location;
+import pl.coderslab.locations.LocationRepository;
+import pl.coderslab.tags.Tag;
+import pl.coderslab.tags.TagRepository;
+import pl.coderslab.users.User;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class EventListPaginationTest {
+
+    private static final int EVENTS = 45;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventSearchIndex eventSearchIndex;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pagesAreDistinctSortedAndLoadedWithThreeStatements() throws InterruptedException {
+        User organizer = fixtures.user("Page", "Test", "organizer@pagination.test");
+        Location location = new Location();
+        location.setName("Sala Stronicowana");
+        location.setCity("Łódź");
+        location.setCapacity(500);
+        locationRepository.save(location);
+        Tag marker = newTag("paginacja-marker");
+        Set<Tag> tags = Set.of(marker, newTag("paginacja-extra-1"), newTag("paginacja-extra-2"));
+
+        List<Event> events = new ArrayList<>();
+        for (int i = EVENTS; i > 0; i--) {
+            Event event = TestFixtures.newEvent(String.format("Paginacja %02d", i), 10, organizer);
+            event.setStartAt(LocalDateTime.now().plusDays(i));
+            event.setEndAt(LocalDateTime.now().plusDays(i).plusHours(2));
+            event.setLocation(location);
+            event.setTags(new HashSet<>(tags));
+            events.add(event);
+        }
+        eventRepository.saveAll(events);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        Page<Event> first = eventService.findEventsWithFilters(null, null, marker.getId(), "title", PageRequest.of(0, PAGE_SIZE));
+        // Page of ids, count, one fetch of the page with location and tags
+        assertEquals(3, statistics.getPrepareStatementCount() - before);
+
+        assertEquals(EVENTS, first.getTotalElements());
+        assertEquals(3, first.getTotalPages());
+        assertEquals(PAGE_SIZE, first.getContent().size());
+        assertEquals("Paginacja 01", first.getContent().get(0).getTitle());
+        for (Event event : first) {
+            assertTrue(Hibernate.isInitialized(event.getTags()));
+            assertEquals(3, event.getTags().size());
+        }
+
+        Set<Long> seen = new HashSet<>();
+        List<String> titles = new ArrayList<>();
+        for (int page = 0; page < first.getTotalPages(); page++) {
+            for (Event event : eventService.findEventsWithFilters(null, null, marker.getId(), "title", PageRequest.of(page, PAGE_SIZE))) {
+                assertTrue(seen.add(event.getId()), "Event on two pages: " + event.getId());
+                titles.add(event.getTitle());
+            }
+        }
+        assertEquals(EVENTS, seen.size());
+        assertEquals(titles.stream().sorted().toList(), titles);
+
+        // Search goes through the index, then the same two phases
+        while (!eventSearchIndex.isReady()) {
+            Thread.sleep(50);
+        }
+        eventSearchIndex.rebuild();
+        Page<Event> searched = eventService.findEventsWithFilters("paginacja", null, null, "title", PageRequest.of(2, PAGE_SIZE));
+        assertEquals(EVENTS, searched.getTotalElements());
+        assertEquals(List.of("Paginacja 41", "Paginacja 42", "Paginacja 43", "Paginacja 44", "Paginacja 45"),
+                searched.map(Event::getTitle).getContent());
+        assertEquals(PAGE_SIZE, eventService.findEventsWithFilters("paginacja lodz", null, null, "relevance", PageRequest.of(0, PAGE_SIZE))
+                .getContent().size());
+    }
+
+    @Test
+    void everyWhitelistedSortIsReadInIndexOrder() {
+        for (EventSort sort : EventSort.values()) {
+            String plan = explain(idQueryOf(new EventFilter(null, null, null, null), sort));
+            if (sort == EventSort.LOCATION) {
+                // Ordered by the name of the joined location - no index covers that, the rows are sorted
+                assertFalse(plan.contains("index sorted"), plan);
+                continue;
+            }
+            assertTrue(plan.contains("index sorted"), sort + ": " + plan);
+        }
+        String byLocation = explain(idQueryOf(new EventFilter(null, 1L, null, null), EventSort.START_AT));
+        assertTrue(byLocation.contains("IDX_EVENTS_LOCATION_START_AT"), byLocation);
+
+        // Anything outside the whitelist never reaches ORDER BY
+        assertEquals(EventSort.START_AT, EventSort.fromParam("title; DROP TABLE events"));
+        assertEquals(EventSort.CAPACITY, EventSort.fromParam("capacity"));
+    }
+
+    private Tag newTag(String name) {
+        Tag tag = new Tag();
+        tag.setName(name);
+        return tagRepository.save(tag);
+    }
+
+    // The SQL of the id query the list really runs
+    private String idQueryOf(EventFilter filter, EventSort sort) {
+        List<String> statements;
+        RecordingStatementInspector.start();
+        try {
+            eventRepository.findEventIds(filter, sort, PageRequest.of(0, PAGE_SIZE));
+        } finally {
+            statements = RecordingStatementInspector.stop();
+        }
+        return statements.get(0);
+    }
+
+    // H2 explains a statement with its parameters left unset
+    private String explain(String sql) {
+        return jdbcTemplate.execute("EXPLAIN " + sql, (PreparedStatement statement) -> {
+            try (ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+}
@@ -0,0 +1,186 @@
+package pl.coderslab.events;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.events.dto.CreateEventRequest;
+import pl.coderslab.events.dto.EventFilter;
+import pl.coderslab.events.dto.UpdateEventRequest;
+import pl.coderslab.locations.Location;
+import pl.coderslab.locations.LocationRepository;
+import pl.coderslab.tags.Tag;
+import pl.coderslab.tags.TagRepository;
+import pl.coderslab.users.User;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class EventSearchIndexTest {
+
+    private static final int EVENTS = 200_000;
+    private static final long FIRST_ID = 5_000_000L;
+    private static final int RUNS = 20;
+
+    private static final String[] KINDS = {"Konferencja", "Warsztaty", "Spotkanie", "Meetup", "Szkolenie", "Festiwal", "Koncert", "Turniej"};
+    private static final String[] TOPICS = {"Java", "Spring", "Python", "Docker", "Agile", "Design", "Data", "Cloud", "Security", "Mobile"};
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private EventSearchIndex eventSearchIndex;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void removeGeneratedEvents() {
+        jdbcTemplate.update("DELETE FROM event_tags WHERE event_id >= ?", FIRST_ID);
+        jdbcTemplate.update("DELETE FROM events WHERE id >= ?", FIRST_ID);
+        eventSearchIndex.rebuild();
+    }
+
+    @Test
+    void indexFindsWhatLikeFindsFasterAndToleratesPrefixesAndTypos() throws InterruptedException {
+        User organizer = fixtures.user("Search", "Test", "organizer@search.test");
+        Location warszawa = newLocation("Centrum Konferencyjne", "Warszawa");
+        Location krakow = newLocation("Hala Targowa", "Kraków");
+        Tag devops = newTag("devops-search");
+
+        List<Object[]> rows = new ArrayList<>(EVENTS);
+        Timestamp startAt = Timestamp.valueOf(LocalDateTime.now().plusMonths(1));
+        Timestamp endAt = Timestamp.valueOf(LocalDateTime.now().plusMonths(1).plusHours(3));
+        for (int i = 0; i < EVENTS; i++) {
+            String title = KINDS[i % KINDS.length] + " " + TOPICS[(i / KINDS.length) % TOPICS.length] + " " + (i % 997);
+            Long locationId = i % 2 == 0 ? warszawa.getId() : krakow.getId();
+            rows.add(new Object[]{FIRST_ID + i, title, "Organizator " + (i % 500), startAt, endAt, 100, locationId, organizer.getId()});
+        }
+        long hackathonInKrakow = FIRST_ID + EVENTS;
+        long hackathonInWarszawa = FIRST_ID + EVENTS + 1;
+        long organizedByHackers = FIRST_ID + EVENTS + 2;
+        rows.add(new Object[]{hackathonInKrakow, "Kubernetes Hackathon", "Cloud Native", startAt, endAt, 50, krakow.getId(), organizer.getId()});
+        rows.add(new Object[]{hackathonInWarszawa, "Hackathon dla studentów", "Politechnika", startAt, endAt, 50, warszawa.getId(), organizer.getId()});
+        rows.add(new Object[]{organizedByHackers, "Spotkanie społeczności", "Hackathon Team", startAt, endAt, 50, warszawa.getId(), organizer.getId()});
+        jdbcTemplate.batchUpdate("INSERT INTO events (id, title, organizer, start_at, end_at, capacity, confirmed_count, location_id, user_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?)", rows);
+        jdbcTemplate.update("INSERT INTO event_tags (event_id, tag_id) VALUES (?, ?)", hackathonInKrakow, devops.getId());
+
+        while (!eventSearchIndex.isReady()) {
+            Thread.sleep(50);
+        }
+        eventSearchIndex.rebuild();
+        assertTrue(eventSearchIndex.size() >= EVENTS + 3, "indexed: " + eventSearchIndex.size());
+
+        List<Long> likeIds = eventRepository
+                .findEventIds(new EventFilter("hackathon", null, null, null), EventSort.START_AT, PageRequest.of(0, 20)).getContent();
+        List<Long> indexIds = eventSearchIndex.search("hackathon", null, null);
+        // LIKE scans every title, the index looks up one term
+        long likeNanos = fastest(() -> eventRepository
+                .findEventIds(new EventFilter("hackathon", null, null, null), EventSort.START_AT, PageRequest.of(0, 20)));
+        long indexNanos = fastest(() -> eventSearchIndex.search("hackathon", null, null));
+        assertTrue(indexNanos < likeNanos, "index " + indexNanos + " ns, LIKE " + likeNanos + " ns");
+
+        // LIKE only looks at titles, the index also at organizers - title matches rank first
+        assertEquals(Set.of(hackathonInKrakow, hackathonInWarszawa), new HashSet<>(likeIds));
+        assertEquals(Set.of(hackathonInKrakow, hackathonInWarszawa), new HashSet<>(indexIds.subList(0, 2)));
+        assertEquals(List.of(organizedByHackers), indexIds.subList(2, indexIds.size()));
+
+        assertTrue(eventSearchIndex.search("hacka", null, null).contains(hackathonInWarszawa));
+        assertTrue(eventSearchIndex.search("hakathon", null, null).contains(hackathonInWarszawa));
+        assertTrue(eventSearchIndex.search("kubernetse", null, null).contains(hackathonInKrakow));
+        assertEquals(List.of(hackathonInKrakow), eventSearchIndex.search("hackathon krakow", null, null));
+        assertEquals(List.of(hackathonInKrakow), eventSearchIndex.search("hackathon", krakow.getId(), null));
+        assertEquals(List.of(hackathonInKrakow), eventSearchIndex.search("hackathon", null, devops.getId()));
+        assertEquals(List.of(hackathonInKrakow), eventSearchIndex.search("devops", null, null).subList(0, 1));
+        assertTrue(eventSearchIndex.search("hackathon nieistniejące", null, null).isEmpty());
+
+        // 20,000 generated events match "java": a column sort pages through all of them,
+        // relevance ranks only the first max-results but still counts every match
+        int javaMatches = eventSearchIndex.findMatchingIds("java", null, null).size();
+        assertTrue(javaMatches >= 20_000, "java matches: " + javaMatches);
+        Page<Event> byDate = eventService.findEventsWithFilters("java", null, null, "startAt", PageRequest.of(900, 20));
+        assertEquals(javaMatches, byDate.getTotalElements());
+        assertEquals(20, byDate.getContent().size());
+        Page<Event> byRelevance = eventService.findEventsWithFilters("java", null, null, "relevance", PageRequest.of(0, 20));
+        assertEquals(javaMatches, byRelevance.getTotalElements());
+        assertEquals(20, byRelevance.getContent().size());
+    }
+
+    @Test
+    void indexFollowsCreateUpdateAndDelete() throws InterruptedException {
+        User organizer = fixtures.user("Sync", "Test", "organizer@search-sync.test");
+        Location location = newLocation("Stadion Miejski", "Poznań");
+        Set<Tag> tags = new HashSet<>(Set.of(newTag("bieganie-search")));
+        while (!eventSearchIndex.isReady()) {
+            Thread.sleep(50);
+        }
+
+        LocalDateTime startAt = LocalDateTime.now().plusDays(10);
+        Long id = eventService.createEvent(new CreateEventRequest("Zimowy Biegathon", "Klub Biegacza",
+                startAt, startAt.plusHours(4), 300, location, organizer, tags));
+        assertEquals(List.of(id), eventSearchIndex.search("biegathon", null, null));
+        assertEquals(List.of(id), eventSearchIndex.search("poznan bieganie", null, null));
+
+        eventService.updateEvent(id, new UpdateEventRequest("Letni Triathlon", "Klub Biegacza",
+                startAt, startAt.plusHours(4), 300, location, organizer, tags));
+        assertTrue(eventSearchIndex.search("biegathon", null, null).isEmpty());
+        assertEquals(List.of(id), eventSearchIndex.search("triathlon", null, null));
+        assertEquals(List.of(id), eventService.findEventsWithFilters("letni triath", null, null, "relevance", PageRequest.of(0, 20))
+                .map(Event::getId).getContent());
+
+        eventService.deleteEvent(id);
+        assertFalse(eventSearchIndex.search("triathlon", null, null).contains(id));
+    }
+
+    // Best of RUNS, so a GC pause or a slow first call does not decide the comparison
+    private long fastest(Supplier<?> query) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private Location newLocation(String name, String city) {
+        Location location = new Location();
+        location.setName(name);
+        location.setCity(city);
+        location.setCapacity(1000);
+        return locationRepository.save(location);
+    }
+
+    private Tag newTag(String name) {
+        Tag tag = new Tag();
+        tag.setName(name);
+        return tagRepository.save(tag);
+    }
+}
@@ -0,0 +1,67 @@
+package pl.coderslab.invitations;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.events.Event;
+import pl.coderslab.invitations.dto.BulkInvitationReport;
+import pl.coderslab.users.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class BulkInvitationTest {
+
+    private static final int ADDRESSES = 20_000;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private InvitationService invitationService;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void mailingListIsInvitedWithChunkedQueries() {
+        User organizer = fixtures.user("Bulk", "Invitations", "organizer@invitations.test");
+
+        Event event = fixtures.event("Mailing list", 100, organizer);
+        Long eventId = event.getId();
+
+        invitationService.sendInvitation(eventId, "guest0@list.test", organizer.getId());
+
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < ADDRESSES; i++) {
+            emails.add("guest" + i + "@list.test");
+        }
+        emails.add("  GUEST1@List.test ");
+        emails.add("not-an-email");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        BulkInvitationReport report = invitationService.sendMultipleInvitations(eventId, emails, organizer.getId());
+        long statements = statistics.getPrepareStatementCount() - before;
+
+        assertEquals(ADDRESSES - 1, report.sent());
+        assertEquals(1, report.alreadyInvited());
+        assertEquals(1, report.duplicates());
+        assertEquals(1, report.invalid());
+        assertEquals(ADDRESSES + 2, report.results().size());
+        assertEquals(ADDRESSES, invitationRepository.countByEventId(eventId));
+        // One duplicate check per 1000 addresses plus insert batches and sequence calls
+        assertTrue(statements < ADDRESSES / 1000 + 2 * ADDRESSES / 50 + 10, "Too many statements: " + statements);
+    }
+}
@@ -0,0 +1,60 @@
+package pl.coderslab.invitations;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.events.Event;
+import pl.coderslab.users.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class InvitationExpiryTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private InvitationService invitationService;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Test
+    void expiresOnlyOldPendingInvitationsInChunks() {
+        User organizer = fixtures.user("Expiry", "Test", "organizer@expiry.test");
+
+        Event event = fixtures.event("Expiry", 10, organizer);
+
+        List<Invitation> invitations = new ArrayList<>();
+        for (int i = 0; i < 2_500; i++) {
+            invitations.add(newInvitation(event, "old" + i, InvitationStatus.PENDING, 40));
+        }
+        for (int i = 0; i < 10; i++) {
+            invitations.add(newInvitation(event, "recent" + i, InvitationStatus.PENDING, 5));
+            invitations.add(newInvitation(event, "accepted" + i, InvitationStatus.ACCEPTED, 40));
+        }
+        invitationRepository.saveAll(invitations);
+
+        invitationService.expireOldInvitations();
+
+        Long eventId = event.getId();
+        assertEquals(2_500, invitationRepository.countByEventIdAndStatus(eventId, InvitationStatus.EXPIRED));
+        assertEquals(10, invitationRepository.countByEventIdAndStatus(eventId, InvitationStatus.PENDING));
+        assertEquals(10, invitationRepository.countByEventIdAndStatus(eventId, InvitationStatus.ACCEPTED));
+    }
+
+    private Invitation newInvitation(Event event, String name, InvitationStatus status, int daysAgo) {
+        Invitation invitation = new Invitation();
+        invitation.setEmail(name + "@expiry.test");
+        invitation.setEvent(event);
+        invitation.setStatus(status);
+        invitation.setSentAt(LocalDateTime.now().minusDays(daysAgo));
+        return invitation;
+    }
+}
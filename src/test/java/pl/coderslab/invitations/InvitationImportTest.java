@@ -0,0 +1,91 @@
+package pl.coderslab.invitations;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.coderslab.RecordingStatementInspector;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.events.Event;
+import pl.coderslab.invitations.dto.InvitationImportReport;
+import pl.coderslab.users.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class InvitationImportTest {
+
+    private static final int GUESTS = 5_000;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private InvitationImporter invitationImporter;
+
+    @Autowired
+    private InvitationService invitationService;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Test
+    void csvImportSkipsRepeatsAcrossBatches() throws IOException {
+        Event event = newEvent("csv");
+        invitationService.sendInvitation(event.getId(), "guest0@import.test", null);
+
+        StringBuilder csv = new StringBuilder("email,name\n");
+        for (int i = 0; i < GUESTS; i++) {
+            csv.append("guest").append(i).append("@import.test,Guest ").append(i).append('\n');
+        }
+        // Repeats land in later batches than the originals
+        csv.append("\"GUEST10@import.test\",again\n");
+        csv.append("guest2500@import.test\n");
+        csv.append("broken line\n");
+
+        RecordingStatementInspector.start();
+        InvitationImportReport report = invitationImporter.importFile(event.getId(),
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), "guests.csv");
+        List<String> statements = RecordingStatementInspector.stop();
+
+        assertTrue(report.finished());
+        // Only the first batch (guest0 was invited before) and the last one (the repeats) need a duplicate lookup
+        assertEquals(2, statements.stream().filter(sql -> sql.contains(" in (")).count());
+        assertEquals(GUESTS + 3, report.linesRead());
+        assertEquals(GUESTS - 1, report.sent());
+        assertEquals(1, report.alreadyInvited());
+        assertEquals(2, report.duplicates());
+        assertEquals(1, report.invalid());
+        assertEquals(GUESTS, invitationRepository.countByEventId(event.getId()));
+        assertEquals(report, invitationImporter.getProgress(event.getId()).orElseThrow());
+    }
+
+    @Test
+    void ndjsonImportAcceptsStringsAndObjects() throws IOException {
+        Event event = newEvent("ndjson");
+        String ndjson = """
+                "first@import.test"
+                {"email": "second@import.test", "name": "Second"}
+                {"name": "no email"}
+                not json
+                """;
+
+        InvitationImportReport report = invitationImporter.importFile(event.getId(),
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), "guests.ndjson");
+
+        assertEquals(4, report.linesRead());
+        assertEquals(2, report.sent());
+        assertEquals(2, report.invalid());
+    }
+
+    private Event newEvent(String name) {
+        User organizer = fixtures.user("Import", "Test", name + "-organizer@import.test");
+
+        return fixtures.event("Import " + name, 100, organizer);
+    }
+}
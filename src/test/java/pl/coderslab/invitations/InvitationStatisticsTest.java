@@ -0,0 +1,102 @@
+package pl.coderslab.invitations;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.events.Event;
+import pl.coderslab.users.User;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class InvitationStatisticsTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private InvitationService invitationService;
+
+    @Autowired
+    private InvitationRepository invitationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void statisticsForSeveralEventsComeFromOneQueryAndFollowChanges() {
+        User organizer = fixtures.user("Stats", "Test", "organizer@stats.test");
+        Event first = fixtures.event("first", 10, organizer);
+        Event second = fixtures.event("second", 10, organizer);
+        Event empty = fixtures.event("empty", 10, organizer);
+
+        invitationService.sendMultipleInvitations(first.getId(), List.of("a@stats.test", "b@stats.test", "c@stats.test"), null);
+        Invitation declined = invitationService.sendInvitation(second.getId(), "d@stats.test", null);
+        invitationService.respondToInvitation(declined.getId(), InvitationStatus.DECLINED);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        Map<Long, Map<InvitationStatus, Long>> stats = invitationService.getInvitationStatistics(
+                List.of(first.getId(), second.getId(), empty.getId()));
+        assertEquals(1, statistics.getPrepareStatementCount() - before);
+
+        assertEquals(3L, stats.get(first.getId()).get(InvitationStatus.PENDING));
+        assertEquals(1L, stats.get(second.getId()).get(InvitationStatus.DECLINED));
+        assertEquals(0L, stats.get(empty.getId()).get(InvitationStatus.PENDING));
+
+        // Served from the cache until something changes
+        before = statistics.getPrepareStatementCount();
+        invitationService.getInvitationStatistics(first.getId());
+        assertEquals(0, statistics.getPrepareStatementCount() - before);
+
+        invitationService.sendInvitation(first.getId(), "e@stats.test", null);
+        assertEquals(4L, invitationService.getInvitationCount(first.getId(), InvitationStatus.PENDING));
+
+        Invitation old = invitationRepository.findByEventIdOrderBySentAtDesc(first.getId()).get(0);
+        old.setSentAt(LocalDateTime.now().minusDays(40));
+        invitationRepository.save(old);
+        invitationService.expireOldInvitations();
+        assertEquals(3L, invitationService.getInvitationCount(first.getId(), InvitationStatus.PENDING));
+        assertEquals(1L, invitationService.getInvitationCount(first.getId(), InvitationStatus.EXPIRED));
+        assertEquals(4L, invitationService.getInvitationCount(first.getId(), null));
+    }
+
+    @Test
+    void cacheIsBoundedAndDropsLoadsThatRacedAnEviction() {
+        User organizer = fixtures.user("Bounded", "Stats", "organizer@bounded-stats.test");
+        Event event = fixtures.event("bounded", 10, organizer);
+        invitationService.sendInvitation(event.getId(), "f@stats.test", null);
+
+        InvitationStatisticsCache bounded = new InvitationStatisticsCache(invitationRepository, new SimpleMeterRegistry(), 600, 2);
+        bounded.get(List.of(event.getId(), -1L, -2L));
+        assertEquals(2, bounded.size());
+
+        // The invitation changes while its counts are being read - they are served, but not kept
+        AtomicReference<InvitationStatisticsCache> racing = new AtomicReference<>();
+        InvitationRepository evictingRepository = (InvitationRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{InvitationRepository.class}, (proxy, method, args) -> {
+                    try {
+                        return method.invoke(invitationRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        racing.get().evictAfterCommit(event.getId());
+                    }
+                });
+        racing.set(new InvitationStatisticsCache(evictingRepository, new SimpleMeterRegistry(), 600, 10));
+        assertEquals(1L, racing.get().get(List.of(event.getId())).get(event.getId()).get(InvitationStatus.PENDING));
+        assertEquals(0, racing.get().size());
+    }
+}
@@ -0,0 +1,51 @@
+package pl.coderslab.notifications;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.coderslab.RecordingStatementInspector;
+import pl.coderslab.TestFixtures;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class MarkAllAsReadTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Test
+    void markAllAsReadIsOneUpdateOfTheUnreadRows() {
+        Long userId = fixtures.user("Mark", "All", "mark-all@notifications.test").getId();
+        Long otherId = fixtures.user("Other", "Reader", "other-reader@notifications.test").getId();
+
+        notificationService.createNotifications(Collections.nCopies(2_000, userId), NotificationTemplate.EVENT_CANCELLED, null, "Wszystkie");
+        notificationService.createNotification(otherId, "Cudza wiadomość", null);
+        assertEquals(2_000, notificationService.getUnreadCount(userId));
+
+        RecordingStatementInspector.start();
+        notificationService.markAllAsRead(userId);
+        List<String> statements = RecordingStatementInspector.stop();
+
+        assertEquals(1, statements.size(), String.join("\n", statements));
+        assertTrue(statements.get(0).toLowerCase().startsWith("update notifications"), statements.get(0));
+        assertEquals(0, notificationService.getUnreadCount(userId));
+        assertEquals(0, notificationRepository.countByUserIdAndIsReadFalse(userId));
+        assertTrue(notificationService.getUnreadNotifications(userId).isEmpty());
+        assertEquals(1, notificationService.getUnreadCount(otherId));
+
+        Notification latest = notificationService.createNotification(userId, "Nowa wiadomość", null);
+        assertEquals(1, notificationService.getUnreadCount(userId));
+        assertEquals(latest.getId(), notificationService.getUnreadNotifications(userId).get(0).getId());
+    }
+}
@@ -0,0 +1,80 @@
+package pl.coderslab.notifications;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.coderslab.TestFixtures;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class NotificationBatchInsertTest {
+
+    private static final int NOTIFICATIONS = 10_000;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationPayloadRepository payloadRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void tenThousandNotificationsAreInsertedInBatches() {
+        Long userId = fixtures.user("Batch", "Test", "batch@notifications.test").getId();
+        List<Long> recipients = Collections.nCopies(NOTIFICATIONS, userId);
+
+        long payloadsBefore = payloadRepository.count();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long unbatched = measureStatements(statistics, () -> transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+            notificationService.createNotifications(recipients, NotificationTemplate.EVENT_CANCELLED, null, "Bez batchowania");
+        }));
+
+        long batched = measureStatements(statistics, () -> transactionTemplate.executeWithoutResult(status ->
+                notificationService.createNotifications(recipients, NotificationTemplate.EVENT_CANCELLED, null, "Z batchowaniem")));
+
+        assertEquals(2L * NOTIFICATIONS, notificationRepository.countByUserIdAndIsReadFalse(userId));
+        assertTrue(unbatched >= NOTIFICATIONS);
+        // One statement per insert batch plus one sequence call per allocation block
+        assertTrue(batched <= 2L * NOTIFICATIONS / BATCH_SIZE + 10, "Too many statements: " + batched);
+
+        // Every recipient row points at one shared payload and renders the same text
+        String rendered = transactionTemplate.execute(status -> notificationRepository
+                .findByUserIdOrderByCreatedAtDesc(userId).get(0).renderMessage());
+        assertTrue(rendered.startsWith("Event '") && rendered.endsWith("batchowaniem' został odwołany"), rendered);
+        assertEquals(payloadsBefore + 2, payloadRepository.count());
+    }
+
+    private long measureStatements(Statistics statistics, Runnable work) {
+        long before = statistics.getPrepareStatementCount();
+        work.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
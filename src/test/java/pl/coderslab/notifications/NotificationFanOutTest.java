@@ -0,0 +1,160 @@
+package pl.coderslab.notifications;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.events.EventRepository;
+import pl.coderslab.registrations.RegistrationService;
+import pl.coderslab.users.User;
+import pl.coderslab.users.UserRepository;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class NotificationFanOutTest {
+
+    private static final AtomicInteger PARTICIPANTS = new AtomicInteger();
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationPayloadRepository payloadRepository;
+
+    @Autowired
+    private NotificationStream notificationStream;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void fullQueueMakesTheCallerWriteItsBroadcastInChunks() throws Exception {
+        User organizer = fixtures.user("FanOut", "Organizer", "organizer@fan-out.test");
+        Long blocking = eventWithParticipants("Blokujący", organizer, 1);
+        Long queued = eventWithParticipants("Kolejkowany", organizer, 1);
+        Long large = eventWithParticipants("Duży", organizer, 1_200);
+
+        // The only worker hangs in the first job until released
+        CountDownLatch release = new CountDownLatch(1);
+        NotificationRepository stalling = (NotificationRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{NotificationRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findRegisteredUserIdsForEvent") && blocking.equals(args[0])) {
+                        release.await(30, TimeUnit.SECONDS);
+                    }
+                    try {
+                        return method.invoke(notificationRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        AtomicInteger commits = new AtomicInteger();
+        PlatformTransactionManager counting = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactionManager.commit(status);
+                commits.incrementAndGet();
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        NotificationFanOut fanOut = new NotificationFanOut(stalling, payloadRepository, notificationStream,
+                userRepository, eventRepository, counting, registry, 1, 1);
+        try {
+            fanOut.broadcast(blocking, NotificationTemplate.EVENT_REMINDER, List.of("Blokujący", "jutro"));
+            waitUntil(() -> fanOut.getQueueDepth() == 0);
+            fanOut.broadcast(queued, NotificationTemplate.EVENT_REMINDER, List.of("Kolejkowany", "jutro"));
+            assertEquals(1, fanOut.getQueueDepth());
+            assertEquals(1.0, registry.get("notifications.fanout.queue.depth").gauge().value());
+
+            // Queue full: this call writes on the test thread, one payload and 500-row chunks in their own transactions
+            fanOut.broadcast(large, NotificationTemplate.EVENT_REMINDER, List.of("Duży", "jutro"));
+            assertEquals(1_200, countReminders(large));
+            assertEquals(4, commits.get());
+            assertEquals(1, countReminderPayloads(large));
+            assertEquals(0, countReminders(blocking));
+            assertEquals(1_200.0, registry.get("notifications.fanout.written").counter().count());
+        } finally {
+            release.countDown();
+            fanOut.shutdown();
+        }
+        assertEquals(1, countReminders(blocking));
+        assertEquals(1, countReminders(queued));
+        assertEquals(1_202.0, registry.get("notifications.fanout.written").counter().count());
+    }
+
+    private Long eventWithParticipants(String title, User organizer, int participants) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < participants; i++) {
+            int number = PARTICIPANTS.incrementAndGet();
+            users.add(TestFixtures.newUser("Uczestnik", "Nr" + number, "participant" + number + "@fan-out.test"));
+        }
+        List<Long> userIds = userRepository.saveAll(users).stream().map(User::getId).toList();
+        Long eventId = fixtures.event(title, participants, organizer).getId();
+        registrationService.registerUsersForEvent(eventId, userIds);
+        return eventId;
+    }
+
+    // Registering the participants notifies them too, only the reminders are counted
+    private long countReminders(Long eventId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications n JOIN notification_payloads p ON p.id = n.payload_id "
+                + "WHERE n.event_id = ? AND p.template_key = 'EVENT_REMINDER'", Long.class, eventId);
+    }
+
+    private long countReminderPayloads(Long eventId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT n.payload_id) FROM notifications n JOIN notification_payloads p ON p.id = n.payload_id "
+                + "WHERE n.event_id = ? AND p.template_key = 'EVENT_REMINDER'", Long.class, eventId);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Fan-out did not finish in 10 s");
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
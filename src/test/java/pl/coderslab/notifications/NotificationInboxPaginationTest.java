@@ -0,0 +1,51 @@
+package pl.coderslab.notifications;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import pl.coderslab.TestFixtures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class NotificationInboxPaginationTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Test
+    void cursorWalksWholeInboxWithoutGapsOrDuplicates() {
+        Long userId = fixtures.user("Keyset", "Inbox", "keyset@notifications.test").getId();
+
+        // One batch - most rows share created_at, so the id tie-break decides the order
+        notificationService.createNotifications(Collections.nCopies(250, userId), NotificationTemplate.EVENT_CANCELLED, null, "Keyset");
+
+        List<Notification> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            List<Notification> page = notificationService.getUserNotificationsPage(userId, cursor, 100);
+            pageSizes.add(page.size());
+            seen.addAll(page);
+            cursor = page.size() == 100 ? NotificationCursor.of(page.get(page.size() - 1)).encode() : null;
+        } while (cursor != null);
+
+        assertEquals(List.of(100, 100, 50), pageSizes);
+        assertEquals(250, new HashSet<>(seen.stream().map(Notification::getId).toList()).size());
+        for (int i = 1; i < seen.size(); i++) {
+            Notification previous = seen.get(i - 1);
+            Notification current = seen.get(i);
+            int byTime = current.getCreatedAt().compareTo(previous.getCreatedAt());
+            assertTrue(byTime < 0 || (byTime == 0 && current.getId() < previous.getId()));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package pl.coderslab.notifications;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.coderslab.TestFixtures;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Own properties mean an own context - and an own database, or its create-drop would reset the shared one
+@SpringBootTest(properties = {
+        "notifications.retention.chunk-size=200",
+        "spring.datasource.url=jdbc:h2:mem:NotificationRetentionTest;MODE=MySQL;DB_CLOSE_DELAY=-1"
+})
+class NotificationRetentionTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRetention notificationRetention;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void deletesExpiredReadNotificationsInChunksPerTemplate() {
+        Long userId = fixtures.user("Retention", "Job", "retention@notifications.test").getId();
+
+        notificationService.createNotifications(Collections.nCopies(1_000, userId), NotificationTemplate.EVENT_CANCELLED, null, "Stary");
+        notificationService.createNotifications(Collections.nCopies(300, userId), NotificationTemplate.EVENT_REMINDER, null, "Stary", "jutro");
+        for (int i = 0; i < 50; i++) {
+            notificationService.createNotification(userId, "Zwykła wiadomość", null);
+        }
+        notificationService.markAllAsRead(userId);
+        notificationService.createNotifications(Collections.nCopies(20, userId), NotificationTemplate.EVENT_CANCELLED, null, "Nieprzeczytany");
+
+        // Everything is 10 days old: past the 7-day reminder retention, within the 30-day default
+        ageAllNotifications(userId, 10);
+        assertEquals(300, notificationRetention.run());
+        assertEquals(1_070, countNotifications(userId));
+
+        // 40 days old: every read notification goes, the 20 unread ones stay
+        ageAllNotifications(userId, 40);
+        assertEquals(1_050, notificationRetention.run());
+        assertEquals(20, countNotifications(userId));
+    }
+
+    private long countNotifications(Long userId) {
+        return entityManager.createQuery("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId", Long.class)
+                .setParameter("userId", userId)
+                .getSingleResult();
+    }
+
+    private void ageAllNotifications(Long userId, int days) {
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createQuery("UPDATE Notification n SET n.createdAt = :createdAt WHERE n.user.id = :userId")
+                .setParameter("createdAt", LocalDateTime.now().minusDays(days))
+                .setParameter("userId", userId)
+                .executeUpdate());
+    }
+}
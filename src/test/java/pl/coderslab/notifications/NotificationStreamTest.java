@@ -0,0 +1,124 @@
+package pl.coderslab.notifications;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import pl.coderslab.RecordingStatementInspector;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.users.User;
+import pl.coderslab.users.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+class NotificationStreamTest {
+
+    private static final int RECIPIENTS = 300;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationController notificationController;
+
+    @Autowired
+    private NotificationStream notificationStream;
+
+    @Autowired
+    private UnreadCountCache unreadCountCache;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void broadcastDoesNotLoadCountersOfUsersNobodyAsked() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < RECIPIENTS; i++) {
+            users.add(TestFixtures.newUser("Odbiorca" + i, "Stream", "recipient" + i + "@stream.test"));
+        }
+        List<Long> userIds = userRepository.saveAll(users).stream().map(User::getId).toList();
+        Long reader = userIds.get(0);
+        assertEquals(0, notificationService.getUnreadCount(reader));
+        int sizeBefore = unreadCountCache.size();
+
+        RecordingStatementInspector.start();
+        notificationService.createNotifications(userIds, NotificationTemplate.EVENT_CANCELLED, null, "Rozgłoszenie");
+        List<String> statements = RecordingStatementInspector.stop();
+
+        assertTrue(statements.stream().noneMatch(sql -> sql.toLowerCase().contains("count(")), String.join("\n", statements));
+        assertEquals(sizeBefore, unreadCountCache.size());
+        assertFalse(unreadCountCache.isLoaded(userIds.get(1)));
+        // The loaded counter follows the broadcast, the others count committed rows when first read
+        assertEquals(1, notificationService.getUnreadCount(reader));
+        assertEquals(1, notificationService.getUnreadCount(userIds.get(1)));
+    }
+
+    @Test
+    void subscriberReceivesCountsAndNewNotifications() throws Exception {
+        Long userId = fixtures.user("Subskrybent", "Stream", "subscriber@stream.test").getId();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(notificationController).build();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/notifications/user/{userId}/stream", userId))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+        assertEquals(1, notificationStream.getSubscriberCount());
+        String content = response.getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(content.startsWith("event:unread-count\ndata:0\n"), content);
+
+        notificationService.createNotification(userId, "Nowa wiadomość na żywo", null);
+        content = response.getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(content.contains("event:notification\n"), content);
+        assertTrue(content.contains("Nowa wiadomość na żywo"), content);
+        assertTrue(content.contains("\"unreadCount\":1"), content);
+
+        notificationService.markAllAsRead(userId);
+        content = response.getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(content.endsWith("event:unread-count\ndata:0\n\n"), content);
+    }
+
+    @Test
+    void countersExpireAndStayBounded() {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            userIds.add(fixtures.user("Licznik" + i, "Stream", "counter" + i + "@stream.test").getId());
+        }
+        UnreadCountCache bounded = new UnreadCountCache(notificationRepository, new SimpleMeterRegistry(), 600, 2);
+        for (Long userId : userIds) {
+            bounded.get(userId);
+        }
+        assertEquals(2, bounded.size());
+
+        UnreadCountCache roomy = new UnreadCountCache(notificationRepository, new SimpleMeterRegistry(), 600, 10);
+        Long userId = userIds.get(2);
+        roomy.get(userId);
+        roomy.add(userId, 5);
+        assertEquals(5, roomy.get(userId));
+        roomy.add(userId, -10);
+        assertEquals(0, roomy.get(userId));
+
+        // A zero TTL means every read counts the rows again
+        UnreadCountCache expiring = new UnreadCountCache(notificationRepository, new SimpleMeterRegistry(), 0, 10);
+        expiring.get(userId);
+        expiring.add(userId, 5);
+        assertEquals(0, expiring.get(userId));
+    }
+}
@@ -0,0 +1,233 @@
+package pl.coderslab.registrations;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.events.Event;
+import pl.coderslab.events.EventRepository;
+import pl.coderslab.events.EventService;
+import pl.coderslab.events.dto.UpdateEventRequest;
+import pl.coderslab.registrations.dto.BulkRegistrationResult;
+import pl.coderslab.users.User;
+import pl.coderslab.users.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SeatReservationConcurrencyTest {
+
+    private static final int CAPACITY = 25;
+    private static final int PARTICIPANTS = 400;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private RegistrationService registrationService;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WaitlistQueue waitlistQueue;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private SeatReservationEngine seatReservationEngine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void parallelRegistrationsNeverExceedCapacity() throws InterruptedException {
+        User organizer = userRepository.save(newUser("organizer"));
+
+        Long eventId = fixtures.event("Ticket drop", CAPACITY, organizer).getId();
+
+        List<Long> participantIds = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            participantIds.add(userRepository.save(newUser("participant" + i)).getId());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger waitlisted = new AtomicInteger();
+
+        for (Long participantId : participantIds) {
+            executor.submit(() -> {
+                start.await();
+                RegistrationStatus status = registrationService.registerUserForEvent(participantId, eventId);
+                if (status == RegistrationStatus.CONFIRMED) {
+                    confirmed.incrementAndGet();
+                } else {
+                    waitlisted.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        long persisted = registrationRepository.countByEventIdAndStatus(eventId, RegistrationStatus.CONFIRMED);
+        assertTrue(persisted <= CAPACITY, "Oversold: " + persisted + " confirmed for capacity " + CAPACITY);
+        assertEquals(CAPACITY, persisted);
+        assertEquals(CAPACITY, confirmed.get());
+        assertEquals(PARTICIPANTS - CAPACITY, waitlisted.get());
+        assertEquals(PARTICIPANTS - CAPACITY,
+                registrationRepository.countByEventIdAndStatus(eventId, RegistrationStatus.WAITLISTED));
+        assertEquals(0, registrationService.getAvailableSpots(eventId));
+        assertEquals(CAPACITY, eventRepository.findById(eventId).orElseThrow().getRegisteredCount());
+    }
+
+    @Test
+    void cancellationPromotesHeadOfWaitlist() {
+        User organizer = userRepository.save(newUser("waitlist-organizer"));
+        Long eventId = fixtures.event("Small workshop", 1, organizer).getId();
+
+        Long firstId = userRepository.save(newUser("waitlist-first")).getId();
+        Long secondId = userRepository.save(newUser("waitlist-second")).getId();
+        Long thirdId = userRepository.save(newUser("waitlist-third")).getId();
+
+        assertEquals(RegistrationStatus.CONFIRMED, registrationService.registerUserForEvent(firstId, eventId));
+        assertEquals(RegistrationStatus.WAITLISTED, registrationService.registerUserForEvent(secondId, eventId));
+        assertEquals(RegistrationStatus.WAITLISTED, registrationService.registerUserForEvent(thirdId, eventId));
+
+        registrationService.unregisterUserFromEvent(firstId, eventId);
+
+        assertEquals(RegistrationStatus.CONFIRMED,
+                registrationRepository.findByEventIdAndUserId(eventId, secondId).orElseThrow().getStatus());
+        assertEquals(RegistrationStatus.WAITLISTED,
+                registrationRepository.findByEventIdAndUserId(eventId, thirdId).orElseThrow().getStatus());
+        assertEquals(1, eventRepository.findById(eventId).orElseThrow().getRegisteredCount());
+        assertEquals(0, registrationService.getAvailableSpots(eventId));
+    }
+
+    @Test
+    void deletingAnEventDropsItsWaitlist() {
+        User organizer = userRepository.save(newUser("deleted-organizer"));
+        Long eventId = fixtures.event("Cancelled meetup", 1, organizer).getId();
+        registrationService.registerUserForEvent(userRepository.save(newUser("deleted-first")).getId(), eventId);
+        registrationService.registerUserForEvent(userRepository.save(newUser("deleted-second")).getId(), eventId);
+        assertEquals(1, registrationService.getWaitlistSize(eventId));
+        assertTrue(waitlistQueue.isLoaded(eventId));
+
+        eventService.deleteEvent(eventId);
+
+        assertFalse(waitlistQueue.isLoaded(eventId));
+        assertFalse(eventRepository.existsById(eventId));
+    }
+
+    @Test
+    void rowReadByTheLazyLoadIsNotQueuedAndPromotedTwice() {
+        User organizer = userRepository.save(newUser("twice-organizer"));
+        Event event = fixtures.event("Queued once", 1, organizer);
+        Long eventId = event.getId();
+        registrationService.registerUserForEvent(userRepository.save(newUser("twice-first")).getId(), eventId);
+        Long secondId = userRepository.save(newUser("twice-second")).getId();
+        registrationService.registerUserForEvent(secondId, eventId);
+        Long waitlistedId = registrationRepository.findByEventIdAndUserId(eventId, secondId).orElseThrow().getId();
+
+        // The queue is loaded with the committed row before its after-commit append arrives
+        assertEquals(1, registrationService.getWaitlistSize(eventId));
+        waitlistQueue.enqueueAfterCommit(eventId, waitlistedId);
+        assertEquals(1, registrationService.getWaitlistSize(eventId));
+
+        eventService.updateEvent(eventId, new UpdateEventRequest(event.getTitle(), event.getOrganizer(),
+                event.getStartAt(), event.getEndAt(), 3, null, organizer, new HashSet<>()));
+        assertEquals(2, eventRepository.findById(eventId).orElseThrow().getRegisteredCount());
+        assertEquals(1, registrationService.getAvailableSpots(eventId));
+    }
+
+    @Test
+    void rolledBackCapacityChangeAndDeleteLeaveTheCounterAsItWas() {
+        User organizer = userRepository.save(newUser("rollback-organizer"));
+        Event event = fixtures.event("Rolled back", 2, organizer);
+        Long eventId = event.getId();
+        registrationService.registerUserForEvent(userRepository.save(newUser("rollback-first")).getId(), eventId);
+        assertEquals(1, registrationService.getAvailableSpots(eventId));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventService.updateEvent(eventId, new UpdateEventRequest(event.getTitle(), event.getOrganizer(),
+                    event.getStartAt(), event.getEndAt(), 10, null, organizer, new HashSet<>()));
+            assertEquals(9, registrationService.getAvailableSpots(eventId));
+            status.setRollbackOnly();
+        });
+        assertEquals(1, registrationService.getAvailableSpots(eventId));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventService.deleteEvent(eventId);
+            status.setRollbackOnly();
+        });
+        assertTrue(seatReservationEngine.isLoaded(eventId));
+        assertEquals(1, registrationService.getAvailableSpots(eventId));
+
+        eventService.deleteEvent(eventId);
+        assertFalse(seatReservationEngine.isLoaded(eventId));
+    }
+
+    @Test
+    void bulkRegistrationFillsCapacityAndWaitlistsTheRest() {
+        User organizer = userRepository.save(newUser("bulk-organizer"));
+        Long eventId = fixtures.event("Company offsite", 900, organizer).getId();
+
+        List<User> team = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            team.add(newUser("bulk" + i));
+        }
+        List<Long> userIds = new ArrayList<>(userRepository.saveAll(team).stream().map(User::getId).toList());
+        registrationService.registerUserForEvent(userIds.get(0), eventId);
+        userIds.add(userIds.get(1));
+        userIds.add(-1L);
+
+        // The budget is 1 s for a 1,000-person team on a warmed-up server: the first rounds pay for class loading
+        // and JIT, so the best of a few rounds against fresh events is what gets checked
+        long bestMs = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            Long offsiteId = fixtures.event("Offsite round " + round, 900, organizer).getId();
+            long start = System.nanoTime();
+            registrationService.registerUsersForEvent(offsiteId, userIds);
+            bestMs = Math.min(bestMs, (System.nanoTime() - start) / 1_000_000);
+        }
+        assertTrue(bestMs < 1_000, "1000 bulk registrations took " + bestMs + " ms at best");
+
+        BulkRegistrationResult result = registrationService.registerUsersForEvent(eventId, userIds);
+
+        assertEquals(899, result.confirmed().size());
+        assertEquals(100, result.waitlisted().size());
+        assertEquals(List.of(userIds.get(0)), result.alreadyRegistered());
+        assertEquals(List.of(-1L), result.unknownUsers());
+        assertEquals(900, registrationRepository.countByEventIdAndStatus(eventId, RegistrationStatus.CONFIRMED));
+        assertEquals(100, registrationRepository.countByEventIdAndStatus(eventId, RegistrationStatus.WAITLISTED));
+        assertEquals(900, eventRepository.findById(eventId).orElseThrow().getRegisteredCount());
+        assertEquals(100, registrationService.getWaitlistSize(eventId));
+    }
+
+    private static User newUser(String name) {
+        return TestFixtures.newUser(name, "Test", name + "@stress.test");
+    }
+}
@@ -0,0 +1,74 @@
+package pl.coderslab.users;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordPolicyTest {
+
+    private static final int BLOCKED = 150_000;
+    private static final int RUNS = 200_000;
+
+    @Test
+    void rulesAndBundledBlocklist() {
+        PasswordPolicy policy = new PasswordPolicy(new DefaultResourceLoader(), 8,
+                new String[]{"classpath:security/common-passwords.txt", "optional:file:/nonexistent/passwords.txt"}, 0.001);
+        assertTrue(policy.getBlocklistSize() > 200);
+
+        assertEquals(List.of(), policy.check("  Konferencja42  "));
+        assertEquals(List.of(), policy.check("Żółć2025Ąę"));
+        assertEquals(List.of("Password is too common, please choose a stronger password"), policy.check("PassWord123"));
+        assertEquals(List.of("Password must be at least 8 characters long", "Password must contain at least one uppercase letter",
+                "Password must contain at least one digit"), policy.check("abc"));
+        assertEquals(List.of("Password is required"), policy.check("   "));
+
+        IllegalArgumentException required = assertThrows(IllegalArgumentException.class, () -> policy.validate(null));
+        assertEquals("Password is required", required.getMessage());
+        IllegalArgumentException failed = assertThrows(IllegalArgumentException.class, () -> policy.validate("zaq12wsx"));
+        assertTrue(failed.getMessage().startsWith("Password validation failed: "), failed.getMessage());
+    }
+
+    @Test
+    void largeBlocklistHasNoFalseNegativesFewFalsePositivesAndIsFast() {
+        Random random = new Random(42);
+        List<String> blocked = new ArrayList<>(BLOCKED);
+        for (int i = 0; i < BLOCKED; i++) {
+            blocked.add("Blocked" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36) + i);
+        }
+        PasswordPolicy policy = new PasswordPolicy(8, blocked, 0.001);
+
+        for (String password : blocked) {
+            assertTrue(policy.check(password.toUpperCase()).contains("Password is too common, please choose a stronger password"), password);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (!policy.check("Allowed" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36) + i).isEmpty()) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < probes * 0.003, "false positives: " + falsePositives);
+
+        String[] passwords = {"Konferencja42", "Wydarzenie2025!", "ZimowyBieg7", "password1"};
+        int sink = 0;
+        for (int i = 0; i < RUNS; i++) {
+            sink += policy.check(passwords[i & 3]).size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            sink += policy.check(passwords[i & 3]).size();
+        }
+        double nanosPerCheck = (System.nanoTime() - start) / (double) RUNS;
+        // A blocklist lookup is a few hashes, not a scan of the list
+        assertTrue(nanosPerCheck < 20_000, "ns per validation: " + nanosPerCheck);
+        assertTrue(sink > 0);
+    }
+}
@@ -0,0 +1,131 @@
+package pl.coderslab.users;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import pl.coderslab.roles.Role;
+import pl.coderslab.roles.RoleRepository;
+import pl.coderslab.users.dto.AuthenticatedUser;
+import pl.coderslab.users.dto.CreateUserRequest;
+import pl.coderslab.users.dto.EditUserRequest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PrincipalCacheTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void signedInPageViewsDoNotLookUpTheUser() {
+        Role participant = newRole("PRINCIPAL_PARTICIPANT");
+        Role organizer = newRole("PRINCIPAL_ORGANIZER");
+        Long id = userService.createUser(new CreateUserRequest("Anna", "Nowak", "anna@principal.test",
+                "Konferencja42", Set.of(participant.getId())));
+        Authentication auth = signedIn("anna@principal.test");
+
+        userDetailsService.loadUserByUsername("anna@principal.test");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        UserDetails details = userDetailsService.loadUserByUsername("anna@principal.test");
+        AuthenticatedUser current = currentUserResolver.require(auth);
+        currentUserResolver.require(auth);
+        assertEquals(0, statistics.getPrepareStatementCount() - before);
+        assertEquals(id, current.id());
+        assertEquals("Anna", current.firstName());
+        assertEquals(Set.of("ROLE_PRINCIPAL_PARTICIPANT"), authorities(details));
+
+        // Spring Security erases the password of the returned principal - the cached hash must survive
+        ((CredentialsContainer) details).eraseCredentials();
+        assertTrue(passwordEncoder.matches("Konferencja42", userDetailsService.loadUserByUsername("anna@principal.test").getPassword()));
+
+        userService.changePassword(id, "NoweHaslo99");
+        assertTrue(passwordEncoder.matches("NoweHaslo99", userDetailsService.loadUserByUsername("anna@principal.test").getPassword()));
+
+        userService.updateUser(new EditUserRequest(id, "Anna", "Kowalska", "anna@principal.test",
+                Set.of(participant.getId(), organizer.getId())));
+        assertEquals("Kowalska", currentUserResolver.require(auth).lastName());
+        assertEquals(Set.of("ROLE_PRINCIPAL_PARTICIPANT", "ROLE_PRINCIPAL_ORGANIZER"),
+                authorities(userDetailsService.loadUserByUsername("anna@principal.test")));
+
+        userService.updateUserEmail(id, "anna.k@principal.test");
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("anna@principal.test"));
+        assertNull(currentUserResolver.resolve(auth));
+        assertEquals(id, currentUserResolver.require(signedIn("anna.k@principal.test")).id());
+
+        userService.deleteUser(id);
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("anna.k@principal.test"));
+    }
+
+    @Test
+    void entriesExpireAndTheCacheStaysBounded() {
+        Role role = newRole("PRINCIPAL_BOUNDED");
+        for (int i = 0; i < 3; i++) {
+            userService.createUser(new CreateUserRequest("Jan", "Bounded", "jan" + i + "@principal.test",
+                    "Konferencja42", Set.of(role.getId())));
+        }
+        PrincipalCache bounded = new PrincipalCache(userRepository, new SimpleMeterRegistry(), 300, 2);
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(bounded.get("jan" + i + "@principal.test"));
+        }
+        assertEquals(2, bounded.size());
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PrincipalCache expiring = new PrincipalCache(userRepository, meterRegistry, 0, 10);
+        expiring.get("jan0@principal.test");
+        expiring.get("jan0@principal.test");
+        assertEquals(0, meterRegistry.get("users.principal.cache.gets").tag("result", "hit").counter().count());
+    }
+
+    private Role newRole(String name) {
+        Role role = new Role();
+        role.setName(name);
+        return roleRepository.save(role);
+    }
+
+    private static Authentication signedIn(String email) {
+        return UsernamePasswordAuthenticationToken.authenticated(email, null, List.of());
+    }
+
+    private static Set<String> authorities(UserDetails details) {
+        return details.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+    }
+}
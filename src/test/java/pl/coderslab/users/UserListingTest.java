@@ -0,0 +1,109 @@
+package pl.coderslab.users;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import pl.coderslab.TestFixtures;
+import pl.coderslab.roles.Role;
+import pl.coderslab.roles.RoleRepository;
+import pl.coderslab.users.dto.UserResponse;
+import pl.coderslab.users.dto.UserSummary;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class UserListingTest {
+
+    private static final int USERS = 300;
+    private static final int PAGE_SIZE = 50;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void pagesOfUsersWithRoleNamesTakeTwoStatementsEach() {
+        Role admin = newRole("LISTING_ADMIN");
+        Role organizer = newRole("LISTING_ORGANIZER");
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = TestFixtures.newUser("Imie" + (USERS - i), "Listing" + String.format("%03d", i % 100), "user" + i + "@listing.test");
+            user.setRoles(i % 3 == 0 ? new HashSet<>(Set.of(admin, organizer)) : i % 3 == 1 ? new HashSet<>(Set.of(organizer)) : new HashSet<>());
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        Page<UserResponse> first = userService.getUserPage("lastName", PageRequest.of(0, PAGE_SIZE));
+        assertEquals(2, statistics.getPrepareStatementCount() - before);
+
+        // Every page: sorted, no user twice, the same role names the entities have
+        Map<String, User> byEmail = users.stream().collect(Collectors.toMap(User::getEmail, Function.identity()));
+        Comparator<UserResponse> byName = Comparator.comparing(UserResponse::lastName)
+                .thenComparing(UserResponse::firstName)
+                .thenComparing(UserResponse::id);
+        List<UserResponse> all = new ArrayList<>();
+        for (int page = 0; page < first.getTotalPages(); page++) {
+            all.addAll(userService.getUserPage("lastName", PageRequest.of(page, PAGE_SIZE)).getContent());
+        }
+        assertEquals(first.getTotalElements(), all.size());
+        assertEquals(all.size(), all.stream().map(UserResponse::id).distinct().count());
+        assertEquals(all.stream().sorted(byName).toList(), all);
+        int checked = 0;
+        for (UserResponse row : all) {
+            User user = byEmail.get(row.email());
+            if (user != null) {
+                assertEquals(user.getRoleNames(), row.roles(), row.email());
+                checked++;
+            }
+        }
+        assertEquals(USERS, checked);
+        assertEquals(List.of("LISTING_ADMIN", "LISTING_ORGANIZER"), List.copyOf(userService.getUserPage("lastName", PageRequest.of(0, PAGE_SIZE))
+                .getContent().stream().filter(row -> row.email().equals("user0@listing.test")).findFirst().orElseThrow().roles()));
+
+        // Unknown sort parameters fall back to the last name instead of reaching the query
+        List<UserResponse> byEmailPage = userService.getUserPage("email", PageRequest.of(0, PAGE_SIZE)).getContent();
+        assertEquals(byEmailPage.stream().sorted(Comparator.comparing(UserResponse::email)).toList(), byEmailPage);
+        assertEquals(first.getContent(), userService.getUserPage("password", PageRequest.of(0, PAGE_SIZE)).getContent());
+    }
+
+    @Test
+    void dropdownLoadsSummariesInOneStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        List<UserSummary> summaries = userService.getUserSummaries();
+        assertEquals(1, statistics.getPrepareStatementCount() - before);
+        assertEquals(userRepository.count(), summaries.size());
+        assertTrue(summaries.stream().allMatch(summary -> summary.id() != null && summary.lastName() != null));
+    }
+
+    private Role newRole(String name) {
+        Role role = new Role();
+        role.setName(name);
+        return roleRepository.save(role);
+    }
+}